@@ -0,0 +1,82 @@
+package com.mikedeejay2.simplestack.benchmarks;
+
+import com.mikedeejay2.simplestack.core.IntSlotArray;
+import com.mikedeejay2.simplestack.core.StackAlgorithms;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the click algorithms: merging the cursor into a slot (left click) and
+ * shift clicking a stack into a 54 slot chest.
+ *
+ * @author Mikedeejay2
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ClickBenchmark {
+	
+	// The max amount that every item stacks to
+	private static final int MAX_AMOUNT = 64;
+	// The amount of different items in the chest
+	private static final int ITEM_TYPES = 8;
+	
+	// The chest before the shift click
+	private IntSlotArray chest;
+	// The chest that the shift click is run on
+	private IntSlotArray working;
+	// Slot amounts that the cursor is merged into
+	private int[]        slotAmounts;
+	
+	@Setup
+	public void setup() {
+		Random random = new Random(0);
+		chest = new IntSlotArray(54);
+		working = new IntSlotArray(54);
+		for (int item = 1; item <= ITEM_TYPES; ++item) {
+			chest.setMaxAmount(item, MAX_AMOUNT);
+			working.setMaxAmount(item, MAX_AMOUNT);
+		}
+		// Fill most of the chest with stacks of random items, most of them full
+		for (int slot = 0; slot < 48; ++slot) {
+			int amount = random.nextInt(4) == 0 ? 1 + random.nextInt(MAX_AMOUNT - 1) : MAX_AMOUNT;
+			chest.setSlot(slot, 1 + random.nextInt(ITEM_TYPES), amount);
+		}
+		slotAmounts = new int[36];
+		for (int i = 0; i < slotAmounts.length; ++i) {
+			slotAmounts[i] = 1 + random.nextInt(MAX_AMOUNT);
+		}
+	}
+	
+	@Benchmark
+	public int leftClickMerge() {
+		// Left click a half stack on the cursor into every slot and sum what stays on the cursor
+		int cursorAmount = MAX_AMOUNT / 2;
+		int leftOver     = 0;
+		for (int slotAmount : slotAmounts) {
+			leftOver += slotAmount + cursorAmount - StackAlgorithms.merge(slotAmount, cursorAmount, MAX_AMOUNT);
+		}
+		return leftOver;
+	}
+	
+	@Benchmark
+	public int shiftClickIntoChest() {
+		working.copyFrom(chest);
+		int item      = 1;
+		int remaining = StackAlgorithms.fillPartialStacks(working, item, MAX_AMOUNT, 0, working.size());
+		if (remaining > 0) {
+			int emptySlot = StackAlgorithms.findEmptySlot(working, 0, working.size(), false);
+			if (emptySlot != -1) {
+				working.setSlot(emptySlot, item, remaining);
+				remaining = 0;
+			}
+		}
+		return remaining;
+	}
+	
+}
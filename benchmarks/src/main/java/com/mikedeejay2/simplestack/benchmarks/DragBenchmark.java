@@ -0,0 +1,61 @@
+package com.mikedeejay2.simplestack.benchmarks;
+
+import com.mikedeejay2.simplestack.core.StackAlgorithms;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of distributing a dragged cursor over the slots of a drag. The overflowing drag
+ * spreads a cursor of a full stack per slot over slots that are already mostly filled, so most
+ * slots return part of their share to the cursor.
+ *
+ * @author Mikedeejay2
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DragBenchmark {
+	
+	// The max amount that the dragged item stacks to
+	private static final int MAX_AMOUNT = 64;
+	
+	// The amount of slots that are dragged over
+	@Param({"4", "36"})
+	private int   slots;
+	// The amounts of the slots before the drag
+	private int[] amounts;
+	// The amounts of the slots before the overflowing drag
+	private int[] fullAmounts;
+	// The amounts that the drag is run on
+	private int[] working;
+	
+	@Setup
+	public void setup() {
+		Random random = new Random(0);
+		amounts = new int[slots];
+		fullAmounts = new int[slots];
+		working = new int[slots];
+		for (int i = 0; i < slots; ++i) {
+			amounts[i] = random.nextInt(2) == 0 ? 0 : random.nextInt(MAX_AMOUNT);
+			fullAmounts[i] = MAX_AMOUNT / 2 + random.nextInt(MAX_AMOUNT / 2);
+		}
+	}
+	
+	@Benchmark
+	public int distribute() {
+		System.arraycopy(amounts, 0, working, 0, slots);
+		return StackAlgorithms.distribute(working, MAX_AMOUNT, MAX_AMOUNT);
+	}
+	
+	@Benchmark
+	public int distributeOverflow() {
+		System.arraycopy(fullAmounts, 0, working, 0, slots);
+		return StackAlgorithms.distribute(working, MAX_AMOUNT * slots, MAX_AMOUNT);
+	}
+	
+}
@@ -0,0 +1,74 @@
+package com.mikedeejay2.simplestack.benchmarks;
+
+import com.mikedeejay2.simplestack.core.GroundMergePlan;
+import com.mikedeejay2.simplestack.core.GroundMergePlanner;
+import com.mikedeejay2.simplestack.core.GroundSnapshot;
+import com.mikedeejay2.simplestack.util.SpatialItemGrid;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of stacking items on the ground, with the items spread over piles like the floor
+ * of a mob farm. The amount of piles grows with the amount of items so that every pile stays the
+ * same size, which shows how finding candidates and planning merges scale with the item count.
+ *
+ * @author Mikedeejay2
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GroundStackBenchmark {
+	
+	// The amount of items in every pile
+	private static final int    PILE_SIZE = 125;
+	// The radius in blocks that items can be apart and still stack
+	private static final double RADIUS    = 1.0;
+	
+	// The amount of items on the ground
+	@Param({"1000", "10000", "50000"})
+	private int                      items;
+	// The snapshot of the items
+	private GroundSnapshot           snapshot;
+	// The grid of the items, storing the entry index of every item
+	private SpatialItemGrid<Integer> grid;
+	// The amount of candidates found by the last search
+	private int                      candidates;
+	
+	@Setup
+	public void setup() {
+		Random random = new Random(0);
+		int    piles  = Math.max(1, items / PILE_SIZE);
+		int    side   = (int)Math.ceil(Math.sqrt(piles));
+		snapshot = new GroundSnapshot(items);
+		grid = new SpatialItemGrid<>(2.0);
+		for (int i = 0; i < items; ++i) {
+			int    pile     = random.nextInt(piles);
+			int    material = random.nextInt(4);
+			double x        = (pile % side) * 8 + random.nextDouble() * 2;
+			double z        = (pile / side) * 8 + random.nextDouble() * 2;
+			snapshot.add(i, x, 64, z, material, 1 + random.nextInt(16), 64);
+			grid.add(material, x, 64, z, i);
+		}
+	}
+	
+	@Benchmark
+	public GroundMergePlan plan() {
+		return GroundMergePlanner.plan(snapshot, RADIUS);
+	}
+	
+	@Benchmark
+	public int findCandidates() {
+		candidates = 0;
+		for (int i = 0; i < items; ++i) {
+			grid.forEachNearby(snapshot.getSimilarityClass(i), snapshot.getX(i), snapshot.getY(i), snapshot.getZ(i), RADIUS,
+					entry -> ++candidates);
+		}
+		return candidates;
+	}
+	
+}
@@ -0,0 +1,59 @@
+package com.mikedeejay2.simplestack.benchmarks;
+
+import com.mikedeejay2.simplestack.core.IntSlotArray;
+import com.mikedeejay2.simplestack.core.StackAlgorithms;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of a hopper moving an item into a chest that is almost full
+ *
+ * @author Mikedeejay2
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HopperBenchmark {
+	
+	// The max amount that every item stacks to
+	private static final int MAX_AMOUNT = 64;
+	
+	// The hopper and chest before the transfer
+	private IntSlotArray hopper;
+	private IntSlotArray chest;
+	// The hopper and chest that the transfer is run on
+	private IntSlotArray workingHopper;
+	private IntSlotArray workingChest;
+	
+	@Setup
+	public void setup() {
+		hopper = new IntSlotArray(5);
+		chest = new IntSlotArray(27);
+		workingHopper = new IntSlotArray(5);
+		workingChest = new IntSlotArray(27);
+		for (int item = 1; item <= 2; ++item) {
+			hopper.setMaxAmount(item, MAX_AMOUNT);
+			chest.setMaxAmount(item, MAX_AMOUNT);
+			workingHopper.setMaxAmount(item, MAX_AMOUNT);
+			workingChest.setMaxAmount(item, MAX_AMOUNT);
+		}
+		hopper.setSlot(4, 1, MAX_AMOUNT);
+		// Every slot of the chest is full except for a partial stack of the moved item at the end
+		for (int slot = 0; slot < 26; ++slot) {
+			chest.setSlot(slot, 1 + slot % 2, MAX_AMOUNT);
+		}
+		chest.setSlot(26, 1, 32);
+	}
+	
+	@Benchmark
+	public int transfer() {
+		workingHopper.copyFrom(hopper);
+		workingChest.copyFrom(chest);
+		return StackAlgorithms.transfer(workingHopper, 1, workingChest, 1, 1);
+	}
+	
+}
@@ -0,0 +1,165 @@
+package com.mikedeejay2.simplestack.benchmarks;
+
+import com.mikedeejay2.simplestack.config.UniqueItemIndex;
+import org.bukkit.Material;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.ItemMeta;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of looking up unique items, with unique items that are renamed tools with custom
+ * model data like the ones in a typical <tt>unique_items.yml</tt>. The index lookup is compared
+ * with the linear <tt>isSimilar</tt> scan that it replaced.
+ * <p>
+ * Item meta can't be created without a server, so the items are <tt>BenchmarkItem</tt>s that carry
+ * their name and custom model data themselves.
+ *
+ * @author Mikedeejay2
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UniqueItemIndexBenchmark {
+	
+	// The materials of the unique items
+	private static final Material[] MATERIALS = {
+			Material.DIAMOND_SWORD, Material.DIAMOND_PICKAXE, Material.DIAMOND_AXE, Material.DIAMOND_SHOVEL,
+			Material.NETHERITE_SWORD, Material.NETHERITE_PICKAXE, Material.BOW, Material.TRIDENT
+	};
+	// The amount of items that are looked up in turn, a power of two
+	private static final int        QUERIES   = 1024;
+	
+	// The amount of unique items in the config
+	@Param({"10", "100", "1000", "10000"})
+	private int             uniqueItems;
+	// The unique items
+	private List<ItemStack> items;
+	// The index of the unique items
+	private UniqueItemIndex index;
+	// Items that are similar to a unique item
+	private ItemStack[]     hits;
+	// Items that are similar to no unique item
+	private ItemStack[]     misses;
+	// The next query to look up
+	private int             query;
+	
+	@Setup
+	public void setup() {
+		Random random = new Random(0);
+		items = new ArrayList<>(uniqueItems);
+		for (int i = 0; i < uniqueItems; ++i) {
+			items.add(new BenchmarkItem(MATERIALS[i % MATERIALS.length], "Custom Item " + i, i, 16));
+		}
+		index = new UniqueItemIndex(items);
+		hits = new ItemStack[QUERIES];
+		misses = new ItemStack[QUERIES];
+		for (int i = 0; i < QUERIES; ++i) {
+			int item = random.nextInt(uniqueItems);
+			hits[i] = new BenchmarkItem(MATERIALS[item % MATERIALS.length], "Custom Item " + item, item, 1);
+			misses[i] = new BenchmarkItem(MATERIALS[random.nextInt(MATERIALS.length)], "Renamed Item " + i, -1, 1);
+		}
+	}
+	
+	@Benchmark
+	public ItemStack indexHit() {
+		return index.get(hits[query++ & (QUERIES - 1)]);
+	}
+	
+	@Benchmark
+	public ItemStack indexMiss() {
+		return index.get(misses[query++ & (QUERIES - 1)]);
+	}
+	
+	@Benchmark
+	public ItemStack linearHit() {
+		return linearScan(hits[query++ & (QUERIES - 1)]);
+	}
+	
+	@Benchmark
+	public ItemStack linearMiss() {
+		return linearScan(misses[query++ & (QUERIES - 1)]);
+	}
+	
+	/**
+	 * Find a unique item by comparing every unique item, the way unique items were looked up
+	 * before the index
+	 *
+	 * @param item The item to find
+	 *
+	 * @return The similar unique item, null if none was found
+	 */
+	private ItemStack linearScan(ItemStack item) {
+		for (ItemStack uniqueItem : items) {
+			if (uniqueItem.isSimilar(item)) {
+				return uniqueItem;
+			}
+		}
+		return null;
+	}
+	
+	/**
+	 * An item with a display name and custom model data that works without a server. Its meta only
+	 * answers the name and custom model data, and it is similar to items of the same material, name
+	 * and custom model data.
+	 */
+	private static final class BenchmarkItem extends ItemStack {
+		
+		// The display name of the item
+		private final String   name;
+		// The custom model data of the item, -1 if none
+		private final int      customModelData;
+		// The meta of the item
+		private final ItemMeta meta;
+		
+		private BenchmarkItem(Material material, String name, int customModelData, int amount) {
+			super(material, amount);
+			this.name = name;
+			this.customModelData = customModelData;
+			this.meta = (ItemMeta)Proxy.newProxyInstance(ItemMeta.class.getClassLoader(), new Class<?>[] {ItemMeta.class},
+					(proxy, method, args) -> {
+						switch (method.getName()) {
+							case "hasDisplayName":
+								return true;
+							case "getDisplayName":
+								return name;
+							case "hasCustomModelData":
+								return customModelData != -1;
+							case "getCustomModelData":
+								return customModelData;
+							default:
+								throw new UnsupportedOperationException(method.getName());
+						}
+					});
+		}
+		
+		@Override
+		public boolean hasItemMeta() {
+			return true;
+		}
+		
+		@Override
+		public ItemMeta getItemMeta() {
+			return meta;
+		}
+		
+		@Override
+		public boolean isSimilar(ItemStack stack) {
+			if (!(stack instanceof BenchmarkItem)) {
+				return false;
+			}
+			BenchmarkItem other = (BenchmarkItem)stack;
+			return getType() == other.getType() && customModelData == other.customModelData && name.equals(other.name);
+		}
+	
+	}
+	
+}
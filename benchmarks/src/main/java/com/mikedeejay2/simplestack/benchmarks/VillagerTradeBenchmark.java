@@ -0,0 +1,65 @@
+package com.mikedeejay2.simplestack.benchmarks;
+
+import com.mikedeejay2.simplestack.core.StackAlgorithms;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of shift clicking the result of a villager trade: the closed form trade count
+ * against the loop that made one trade per pass.
+ *
+ * @author Mikedeejay2
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VillagerTradeBenchmark {
+	
+	// The amount of the first ingredient that one trade costs
+	private static final int COST_1        = 1;
+	// The amount of the second ingredient that one trade costs
+	private static final int COST_2        = 2;
+	// The amount of the result of one trade
+	private static final int RESULT_AMOUNT = 1;
+	// The amount of times that the trade can still be used
+	private static final int USES_LEFT     = 9999;
+	
+	// The max amount that items stack to
+	@Param({"64", "1024"})
+	private int maxAmount;
+	
+	@Benchmark
+	public int closedForm() {
+		int trades = StackAlgorithms.tradeCount(maxAmount, COST_1, maxAmount, COST_2, USES_LEFT, RESULT_AMOUNT, maxAmount);
+		return (maxAmount - trades * COST_1) + (maxAmount - trades * COST_2) + RESULT_AMOUNT * (trades + 1) - 1;
+	}
+	
+	@Benchmark
+	public int loop() {
+		int input1 = maxAmount;
+		int input2 = maxAmount;
+		int result = RESULT_AMOUNT;
+		int uses   = 0;
+		for (int i = 0; i < maxAmount; i++) {
+			if (result + RESULT_AMOUNT > maxAmount + 1 || uses >= USES_LEFT) {
+				break;
+			}
+			if (input1 - COST_1 < 0) {
+				break;
+			}
+			input1 -= COST_1;
+			if (input2 - COST_2 < 0) {
+				break;
+			}
+			input2 -= COST_2;
+			result += RESULT_AMOUNT;
+			++uses;
+		}
+		return input1 + input2 + result - 1;
+	}
+	
+}
@@ -4,7 +4,12 @@ import com.mikedeejay2.simplestack.commands.CommandHandler;
 import com.mikedeejay2.simplestack.config.Config;
 import com.mikedeejay2.simplestack.listeners.*;
 import com.mikedeejay2.simplestack.listeners.player.*;
+import com.mikedeejay2.simplestack.runnables.DeferredActionQueue;
 import com.mikedeejay2.simplestack.runnables.GroundItemStacker;
+import com.mikedeejay2.simplestack.runnables.HopperTransferQueue;
+import com.mikedeejay2.simplestack.runnables.InventoryUpdateQueue;
+import com.mikedeejay2.simplestack.util.PermissionCache;
+import com.mikedeejay2.simplestack.util.ShiftClickRegistry;
 import org.bukkit.plugin.java.JavaPlugin;
 
 /**
@@ -22,10 +27,34 @@ public final class SimpleStack extends JavaPlugin {
 	// The config of Simple Stack which stores all customizable data
 	private Config config;
 	
+	// The runnable that stacks unstackable items on the ground
+	private GroundItemStacker groundItemStacker;
+	
+	// The queue of hopper moves that are done with custom stacking
+	private HopperTransferQueue hopperTransferQueue;
+	
+	// The queue of players whose inventory has to be resent
+	private InventoryUpdateQueue inventoryUpdateQueue;
+	
+	// The shift click strategies of every kind of inventory
+	private ShiftClickRegistry shiftClickRegistry;
+	
+	// The cached simplestack.use permission of every player
+	private PermissionCache permissionCache;
+	
+	// The queue of actions that run on the next tick
+	private DeferredActionQueue deferredActionQueue;
+	
 	@Override
 	public void onEnable() {
 		
 		config = new Config(this);
+		groundItemStacker = new GroundItemStacker(this);
+		hopperTransferQueue = new HopperTransferQueue(this);
+		inventoryUpdateQueue = new InventoryUpdateQueue(this);
+		shiftClickRegistry = new ShiftClickRegistry();
+		permissionCache = new PermissionCache(this);
+		deferredActionQueue = new DeferredActionQueue(this);
 		
 		getCommand("simplestack").setExecutor(new CommandHandler(this));
 		
@@ -41,13 +70,19 @@ public final class SimpleStack extends JavaPlugin {
 		getServer().getPluginManager().registerEvents(new InventoryPickupItemListener(this), this);
 		getServer().getPluginManager().registerEvents(new PlayerItemConsumeListener(this), this);
 		getServer().getPluginManager().registerEvents(new PrepareSmithingListener(this), this);
+		getServer().getPluginManager().registerEvents(new ItemSpawnListener(this), this);
+		getServer().getPluginManager().registerEvents(new ItemDespawnListener(this), this);
+		getServer().getPluginManager().registerEvents(new ChunkLoadListener(this), this);
+		getServer().getPluginManager().registerEvents(new ChunkUnloadListener(this), this);
+		getServer().getPluginManager().registerEvents(new PlayerPermissionListener(this), this);
 		
-		GroundItemStacker stacker = new GroundItemStacker(this);
-		stacker.runTaskTimer(this, 0, 20);
+		groundItemStacker.runTaskTimer(this, 0, 1);
+		deferredActionQueue.runTaskTimer(this, 1, 1);
 	}
 	
 	@Override
 	public void onDisable() {
+		groundItemStacker.shutdown();
 		config.saveToDisk();
 	}
 	
@@ -69,4 +104,59 @@ public final class SimpleStack extends JavaPlugin {
 		return config;
 	}
 	
+	/**
+	 * Get the runnable that stacks unstackable items on the ground
+	 *
+	 * @return The ground item stacker
+	 */
+	public GroundItemStacker getGroundItemStacker() {
+		return groundItemStacker;
+	}
+	
+	/**
+	 * Get the queue of hopper moves that are done with custom stacking
+	 *
+	 * @return The hopper transfer queue
+	 */
+	public HopperTransferQueue getHopperTransferQueue() {
+		return hopperTransferQueue;
+	}
+	
+	/**
+	 * Get the queue of players whose inventory has to be resent
+	 *
+	 * @return The inventory update queue
+	 */
+	public InventoryUpdateQueue getInventoryUpdateQueue() {
+		return inventoryUpdateQueue;
+	}
+	
+	/**
+	 * Get the shift click strategies of every kind of inventory. Other plugins can
+	 * register strategies for their custom GUIs here.
+	 *
+	 * @return The shift click registry
+	 */
+	public ShiftClickRegistry getShiftClickRegistry() {
+		return shiftClickRegistry;
+	}
+	
+	/**
+	 * Get the cached simplestack.use permission of every player
+	 *
+	 * @return The permission cache
+	 */
+	public PermissionCache getPermissionCache() {
+		return permissionCache;
+	}
+	
+	/**
+	 * Get the queue of actions that run on the next tick
+	 *
+	 * @return The deferred action queue
+	 */
+	public DeferredActionQueue getDeferredActionQueue() {
+		return deferredActionQueue;
+	}
+	
 }
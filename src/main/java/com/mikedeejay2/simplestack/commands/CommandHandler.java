@@ -2,6 +2,8 @@ package com.mikedeejay2.simplestack.commands;
 
 import com.mikedeejay2.simplestack.SimpleStack;
 import com.mikedeejay2.simplestack.config.Config;
+import com.mikedeejay2.simplestack.runnables.DeferredActionQueue;
+import com.mikedeejay2.simplestack.runnables.GroundItemStacker;
 import org.apache.commons.lang.math.NumberUtils;
 import org.bukkit.ChatColor;
 import org.bukkit.Material;
@@ -50,13 +52,14 @@ public class CommandHandler implements CommandExecutor {
 					sender.sendMessage(format("simplestack.warnings.no_permission"));
 					return true;
 				}
-				config.reload();
-				sender.sendMessage(format("simplestack.reload.success"));
-				if (!(sender instanceof Player)) {
-					return true;
-				}
-				Player player = (Player)sender;
-				player.playSound(player.getLocation(), Sound.UI_BUTTON_CLICK, 0.5f, 1f);
+				config.reload(() -> {
+					sender.sendMessage(format("simplestack.commands.reload.success"));
+					if (!(sender instanceof Player)) {
+						return;
+					}
+					Player player = (Player)sender;
+					player.playSound(player.getLocation(), Sound.UI_BUTTON_CLICK, 0.5f, 1f);
+				});
 			} else if (args[0].equalsIgnoreCase("removeitem")) {
 				if (!sender.hasPermission("simplestack.removeitem")) {
 					sender.sendMessage(format("simplestack.warnings.no_permission"));
@@ -81,13 +84,14 @@ public class CommandHandler implements CommandExecutor {
 					sender.sendMessage(format("simplestack.warnings.no_permission"));
 					return true;
 				}
-				config.resetFromJar();
-				sender.sendMessage(format("simplestack.reset.success"));
-				if (!(sender instanceof Player)) {
-					return true;
-				}
-				Player player = (Player)sender;
-				player.playSound(player.getLocation(), Sound.UI_BUTTON_CLICK, 0.5f, 1f);
+				config.resetFromJar(() -> {
+					sender.sendMessage(format("simplestack.commands.reset.success"));
+					if (!(sender instanceof Player)) {
+						return;
+					}
+					Player player = (Player)sender;
+					player.playSound(player.getLocation(), Sound.UI_BUTTON_CLICK, 0.5f, 1f);
+				});
 			} else if (args[0].equalsIgnoreCase("setamount")) {
 				if(!sender.hasPermission("simplestack.setamount")) {
 					sender.sendMessage(format("simplestack.warnings.no_permission"));
@@ -115,6 +119,24 @@ public class CommandHandler implements CommandExecutor {
 				item.setAmount(amount);
 				player.sendMessage(format("simplestack.commands.setamount.success"));
 				player.playSound(player.getLocation(), Sound.ENTITY_ITEM_PICKUP, 0.5f, 1f);
+			} else if (args[0].equalsIgnoreCase("stats")) {
+				if (!sender.hasPermission("simplestack.stats")) {
+					sender.sendMessage(format("simplestack.warnings.no_permission"));
+					return true;
+				}
+				GroundItemStacker stacker = plugin.getGroundItemStacker();
+				sender.sendMessage(format("simplestack.commands.stats.ground_stacking")
+						.replace("{TRACKED}", String.valueOf(stacker.getTrackedCount()))
+						.replace("{BACKLOG}", String.valueOf(stacker.getBacklog())));
+				sender.sendMessage(format("simplestack.commands.stats.budget")
+						.replace("{USED}", String.valueOf(stacker.getLastTickTime()))
+						.replace("{BUDGET}", String.valueOf(config.snapshot().getGroundTickBudget()))
+						.replace("{AVERAGE}", String.valueOf(stacker.getAverageTickTime())));
+				DeferredActionQueue deferred = plugin.getDeferredActionQueue();
+				sender.sendMessage(format("simplestack.commands.stats.deferred_actions")
+						.replace("{RUN}", String.valueOf(deferred.getLastRunCount()))
+						.replace("{COALESCED}", String.valueOf(deferred.getLastCoalescedCount()))
+						.replace("{USED}", String.valueOf(deferred.getLastRunTime())));
 			}
 			return true;
 		}
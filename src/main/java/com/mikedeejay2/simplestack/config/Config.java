@@ -1,6 +1,7 @@
 package com.mikedeejay2.simplestack.config;
 
 import com.mikedeejay2.simplestack.SimpleStack;
+import org.bukkit.Bukkit;
 import org.bukkit.Material;
 import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.configuration.file.FileConfiguration;
@@ -10,50 +11,37 @@ import org.bukkit.inventory.ItemStack;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 import java.util.stream.Collectors;
 
 /**
  * Config class for holding all configuration values for Simple Stack and
- * managing file saving / loading.
+ * managing file saving / loading. <p>
+ * All values are stored in an immutable <tt>ConfigSnapshot</tt> that is published through a
+ * single volatile reference. Modifying the config builds a new snapshot and swaps it in
+ * atomically, so listeners never have to lock and never see a partially modified config.
  *
  * @author Mikedeejay2
  */
 public class Config {
 	
-	private final SimpleStack       plugin;
-	private final FileConfiguration accessor;
-	
-	//Variables
-	// List mode of the material list. Either Blacklist of Whitelist.
-	private ListMode               listMode;
-	// Material list of the config (Item Type list in config)
-	private List<Material>         materialList;
-	// Item amounts based on the item's material (Item Type amounts list in config)
-	private Map<Material, Integer> itemAmounts;
-	// Unique items list from the unique_items.json
-	private List<ItemStack>        uniqueItemList;
-	// The max amount for all items in minecraft
-	private int                    maxAmount;
-	// Whether custom hopper stacking occurs or not
-	private boolean                hopperMovement;
-	// Whether custom ground stacking occurs or not
-	private boolean                groundStacks;
-	// Whether the creative middle click dragging should always create a full stack
-	private boolean                creativeDrag;
-	
-	// Internal config data
-	// The unique items json file
-	private YamlConfiguration uniqueItems;
+	private final    SimpleStack       plugin;
+	// The accessor of config.yml, replaced when the config is reloaded
+	private volatile FileConfiguration accessor;
+	// The currently published snapshot of all config values
+	private volatile ConfigSnapshot    snapshot;
 	
 	public Config(SimpleStack plugin) {
 		this.plugin = plugin;
-		accessor = plugin.getConfig();
 		if (!new File(plugin.getDataFolder(), "config.yml").exists()) {
 			plugin.saveDefaultConfig();
 			plugin.reloadConfig();
 		}
-		loadData();
+		accessor = plugin.getConfig();
+		snapshot = loadSnapshot(accessor);
 	}
 	
 	public FileConfiguration getAccessor() {
@@ -61,59 +49,111 @@ public class Config {
 	}
 	
 	/**
-	 * Load all data from the config files into this class.
+	 * Get the currently published snapshot of the config. Read the snapshot once and use it for the
+	 * rest of a calculation to be sure that every value comes from the same version of the config.
+	 *
+	 * @return The current <tt>ConfigSnapshot</tt>
 	 */
-	private void loadData() {
-		
-		loadDefaultAmount();
-		loadListMode();
-		loadMaterialList();
-		loadItemList();
-		loadItemAmounts();
-		loadHopperMovement();
-		loadGroundStacks();
-		loadCreativeDrag();
+	public ConfigSnapshot snapshot() {
+		return snapshot;
 	}
 	
 	/**
-	 * Load creative item dragging into <tt>creativeDrag</tt> variable of this config
+	 * Load all data from the config files into a new snapshot. This method does not touch the
+	 * current snapshot so it is safe to call off of the main thread.
+	 *
+	 * @param accessor The accessor of config.yml to load the data from
+	 *
+	 * @return The newly loaded snapshot
 	 */
-	private void loadCreativeDrag() {
-		creativeDrag = accessor.getBoolean("Creative Item Dragging");
+	private ConfigSnapshot loadSnapshot(FileConfiguration accessor) {
+		return new ConfigSnapshot(
+				loadListMode(accessor),
+				loadMaterialList(accessor),
+				loadItemAmounts(accessor),
+				loadItemList(accessor),
+				loadDefaultAmount(accessor),
+				accessor.getBoolean("Hopper Movement Checks"),
+				accessor.getBoolean("Ground Stacking Checks"),
+				accessor.getBoolean("Creative Item Dragging"),
+				loadGroundDistance(accessor, "Ground Stacking Cell Size"),
+				loadGroundDistance(accessor, "Ground Stacking Merge Radius"),
+				loadGroundTickBudget(accessor),
+				loadSyncMode(accessor));
 	}
 	
 	/**
-	 * Load hopper movement into the <tt>hopperMovement</tt> variable of this config
+	 * Publish a new snapshot of the config
+	 *
+	 * @param snapshot The new snapshot
 	 */
-	private void loadHopperMovement() {
-		hopperMovement = accessor.getBoolean("Hopper Movement Checks");
+	private synchronized void publish(ConfigSnapshot snapshot) {
+		this.snapshot = snapshot;
 	}
 	
 	/**
-	 * Load ground stacking into the <tt>groundStacks</tt> variable of this config
+	 * Load the default max amount for this config
+	 *
+	 * @param accessor The accessor of config.yml
+	 *
+	 * @return The default max amount
 	 */
-	private void loadGroundStacks() {
-		groundStacks = accessor.getBoolean("Ground Stacking Checks");
+	private int loadDefaultAmount(FileConfiguration accessor) {
+		int maxAmount = accessor.getInt("Default Max Amount");
+		if (maxAmount > 64 || maxAmount <= 0) {
+			maxAmount = 64;
+			plugin.getLogger().warning(accessor.getString("simplestack.warnings.invalid_max_amount"));
+		}
+		return maxAmount;
 	}
 	
 	/**
-	 * Load the default max amount into the <tt>maxAmount</tt> variable for this config
+	 * Load a ground stacking distance for this config
+	 *
+	 * @param accessor The accessor of config.yml
+	 * @param path     The path of the distance in the config
+	 *
+	 * @return The distance in blocks
 	 */
-	private void loadDefaultAmount() {
-		maxAmount = accessor.getInt("Default Max Amount");
-		if (maxAmount > 64 || maxAmount <= 0) {
-			maxAmount = 64;
-			plugin.getLogger().warning(accessor.getString("simplestack.warnings.invalid_max_amount"));
+	private double loadGroundDistance(FileConfiguration accessor, String path) {
+		double distance = accessor.getDouble(path, 1.0);
+		if (distance <= 0 || distance > 16) {
+			plugin.getLogger().warning(accessor.getString("simplestack.warnings.invalid_ground_distance").replace("{KEY}", path));
+			distance = 1.0;
+		}
+		return distance;
+	}
+	
+	/**
+	 * Load the ground stacking tick budget for this config
+	 *
+	 * @param accessor The accessor of config.yml
+	 *
+	 * @return The tick budget in microseconds
+	 */
+	private int loadGroundTickBudget(FileConfiguration accessor) {
+		int budget = accessor.getInt("Ground Stacking Tick Budget", 500);
+		if (budget <= 0 || budget > 50000) {
+			plugin.getLogger().warning(accessor.getString("simplestack.warnings.invalid_ground_tick_budget"));
+			budget = 500;
 		}
+		return budget;
 	}
 	
 	/**
-	 * Load item amounts into the <tt>itemAmounts</tt> map for this config
+	 * Load the item amounts map for this config
+	 *
+	 * @param accessor The accessor of config.yml
+	 *
+	 * @return The map of material to item amount
 	 */
-	private void loadItemAmounts() {
-		itemAmounts = new HashMap<>();
-		ConfigurationSection section      = accessor.getConfigurationSection("Item Amounts");
-		Set<String>          materialList = section.getKeys(false);
+	private Map<Material, Integer> loadItemAmounts(FileConfiguration accessor) {
+		Map<Material, Integer> itemAmounts = new HashMap<>();
+		ConfigurationSection   section     = accessor.getConfigurationSection("Item Amounts");
+		if (section == null) {
+			return itemAmounts;
+		}
+		Set<String> materialList = section.getKeys(false);
 		for (String mat : materialList) {
 			Material material = Material.matchMaterial(mat);
 			if (material == null && !mat.equals("Example Item")) {
@@ -129,27 +169,53 @@ public class Config {
 				itemAmounts.put(material, amount);
 			}
 		}
+		return itemAmounts;
 	}
 	
 	/**
-	 * Load the list mode into the <tt>ListMode</tt> variable for this config
+	 * Load the list mode for this config
+	 *
+	 * @param accessor The accessor of config.yml
+	 *
+	 * @return The <tt>ListMode</tt> of the config
 	 */
-	private void loadListMode() {
+	private ListMode loadListMode(FileConfiguration accessor) {
 		String listMode = accessor.getString("List Mode");
 		try {
-			this.listMode = ListMode.valueOf(listMode.toUpperCase().replace(" ", "_"));
+			return ListMode.valueOf(listMode.toUpperCase().replace(" ", "_"));
 		} catch (Exception e) {
 			plugin.getLogger().warning(accessor.getString("simplestack.warnings.invalid_list_mode").replace("{MODE}", listMode));
-			this.listMode = ListMode.BLACKLIST;
+			return ListMode.BLACKLIST;
 		}
 	}
 	
 	/**
-	 * Load the material list into the <tt>materialList</tt> list for this config
+	 * Load the inventory sync mode for this config
+	 *
+	 * @param accessor The accessor of config.yml
+	 *
+	 * @return The <tt>SyncMode</tt> of the config
 	 */
-	private void loadMaterialList() {
-		List<String> matList = accessor.getStringList("Item Types");
-		materialList = new ArrayList<>();
+	private SyncMode loadSyncMode(FileConfiguration accessor) {
+		String syncMode = accessor.getString("Inventory Sync Mode", "Full");
+		try {
+			return SyncMode.valueOf(syncMode.toUpperCase().replace(" ", "_"));
+		} catch (Exception e) {
+			plugin.getLogger().warning(accessor.getString("simplestack.warnings.invalid_sync_mode").replace("{MODE}", syncMode));
+			return SyncMode.FULL;
+		}
+	}
+	
+	/**
+	 * Load the material list for this config
+	 *
+	 * @param accessor The accessor of config.yml
+	 *
+	 * @return The list of materials
+	 */
+	private List<Material> loadMaterialList(FileConfiguration accessor) {
+		List<String>   matList      = accessor.getStringList("Item Types");
+		List<Material> materialList = new ArrayList<>();
 		
 		for (String mat : matList) {
 			Material material = Material.matchMaterial(mat);
@@ -162,23 +228,25 @@ public class Config {
 			}
 			materialList.add(material);
 		}
+		return materialList;
 	}
 	
 	/**
-	 * Load the unique items list into the <tt>uniqueItems</tt> list for this config
+	 * Load the unique items list from unique_items.yml
+	 *
+	 * @param accessor The accessor of config.yml
+	 *
+	 * @return The list of unique items
 	 */
-	private void loadItemList() {
-		uniqueItemList = new ArrayList<>();
-		File uniqueItemsFile = new File("unique_items.yml");
+	private List<ItemStack> loadItemList(FileConfiguration accessor) {
+		List<ItemStack> uniqueItemList  = new ArrayList<>();
+		File            uniqueItemsFile = new File(plugin.getDataFolder(), "unique_items.yml");
 		if (!uniqueItemsFile.exists()) {
-			return;
+			return uniqueItemList;
 		}
-		this.uniqueItems = YamlConfiguration.loadConfiguration(uniqueItemsFile);
+		YamlConfiguration uniqueItems = YamlConfiguration.loadConfiguration(uniqueItemsFile);
 		List<ItemStack> itemList = uniqueItems.getMapList("items").stream().map(map -> ItemStack.deserialize((Map<String, Object>)map))
 				.collect(Collectors.toList());
-		if (itemList.isEmpty()) {
-			return;
-		}
 		
 		for (ItemStack item : itemList) {
 			if (item == null || item.getType().isAir()) {
@@ -187,6 +255,7 @@ public class Config {
 			}
 			uniqueItemList.add(item);
 		}
+		return uniqueItemList;
 	}
 	
 	/**
@@ -197,55 +266,54 @@ public class Config {
 	 * @return If this item has a custom amount set or not
 	 */
 	public boolean hasCustomAmount(Material material) {
-		return itemAmounts.containsKey(material);
+		return snapshot.containsItemAmount(material);
 	}
 	
 	/**
-	 * Get the custom amount of an item that has been set in the config.
-	 * A check is required before running this commands, see hasCustomAmount.
+	 * Get the max amount of an item, taking unique items and custom amounts into account.
 	 *
 	 * @param item The item to get the custom amount for
 	 *
 	 * @return The custom amount for this item.
 	 */
 	public int getAmount(ItemStack item) {
-		boolean containsUnique   = containsUniqueItem(item);
-		boolean containsMaterial = containsMaterial(item.getType());
-		boolean hasCustomAmount  = hasCustomAmount(item.getType());
-		if (containsUnique) {
-			return getUniqueItem(item).getAmount();
-		} else if (hasCustomAmount) {
-			return itemAmounts.get(item.getType());
-		} else if ((getListMode() == ListMode.WHITELIST && containsMaterial) || (getListMode() == ListMode.BLACKLIST && !containsMaterial)) {
-			return getMaxAmount();
-		} else {
-			return item.getMaxStackSize();
-		}
+		return snapshot.getAmount(item);
 	}
 	
 	/**
-	 * Overridden method from <tt>DataFile</tt> that saves the current config file to the disk.
-	 * This method also saves the "unique_items.json" file that this config file controls.
+	 * Get the max amount of a material from the compiled amount table.
+	 * This does not take unique items into account, see <tt>getAmount(ItemStack)</tt>.
+	 *
+	 * @param material The material to get the max amount for
+	 *
+	 * @return The max amount for the material
+	 */
+	public int getAmount(Material material) {
+		return snapshot.getAmount(material);
+	}
+	
+	/**
+	 * Saves the current config file to the disk.
+	 * This method also saves the "unique_items.yml" file that this config file controls.
 	 *
 	 * @return Whether the file save was successful or not
 	 */
 	public boolean saveToDisk() {
-		accessor.set("List Mode", listMode == ListMode.BLACKLIST ? "Blacklist" : "Whitelist");
+		ConfigSnapshot    snapshot = this.snapshot;
+		FileConfiguration accessor = this.accessor;
+		accessor.set("List Mode", snapshot.getListMode() == ListMode.BLACKLIST ? "Blacklist" : "Whitelist");
 		List<String> materials = new ArrayList<>();
-		for (Material material : materialList) {
-			if (material == null) {
-				continue;
-			}
+		for (Material material : snapshot.getMaterialList()) {
 			materials.add(material.toString());
 		}
 		accessor.set("Item Types", materials);
-		accessor.set("Default Max Amount", maxAmount);
+		accessor.set("Default Max Amount", snapshot.getMaxAmount());
 		
 		accessor.set("Item Amounts", null);
-		ConfigurationSection itemAmtAccessor = accessor.getConfigurationSection("Item Amounts");
-		for (Map.Entry<Material, Integer> entry : itemAmounts.entrySet()) {
+		ConfigurationSection itemAmtAccessor = accessor.createSection("Item Amounts");
+		for (Map.Entry<Material, Integer> entry : snapshot.getItemAmounts().entrySet()) {
 			Material material = entry.getKey();
-			if (material == null || material == Material.AIR) {
+			if (material == Material.AIR) {
 				continue;
 			}
 			int    amount      = entry.getValue();
@@ -253,16 +321,14 @@ public class Config {
 			itemAmtAccessor.set(materialStr, amount);
 		}
 		
-		accessor.set("Hopper Movement Checks", hopperMovement);
-		accessor.set("Ground Stacking Checks", groundStacks);
-		accessor.set("Creative Item Dragging", creativeDrag);
+		accessor.set("Hopper Movement Checks", snapshot.shouldProcessHoppers());
+		accessor.set("Ground Stacking Checks", snapshot.processGroundItems());
+		accessor.set("Creative Item Dragging", snapshot.shouldCreativeDrag());
 		
-		if (!uniqueItemList.isEmpty()) {
-			File uniqueItemsFile = new File(plugin.getDataFolder(), "unique_items.yml");
-			if (uniqueItems == null) {
-				uniqueItems = new YamlConfiguration();
-			}
-			uniqueItems.set("items", uniqueItemList);
+		File uniqueItemsFile = new File(plugin.getDataFolder(), "unique_items.yml");
+		if (!snapshot.getUniqueItemList().isEmpty() || uniqueItemsFile.exists()) {
+			YamlConfiguration uniqueItems = new YamlConfiguration();
+			uniqueItems.set("items", new ArrayList<>(snapshot.getUniqueItemList()));
 			try {
 				uniqueItems.save(uniqueItemsFile);
 			} catch (IOException e) {
@@ -270,25 +336,48 @@ public class Config {
 			}
 		}
 		
-		plugin.saveConfig();
+		try {
+			accessor.save(new File(plugin.getDataFolder(), "config.yml"));
+		} catch (IOException e) {
+			e.printStackTrace();
+			return false;
+		}
 		
 		return true;
 	}
 	
 	/**
-	 * Overridden method from <tt>DataFile</tt> that resets the config to its default state.
+	 * Resets the config to its default state. The default config is written to the disk
+	 * and then reloaded, see <tt>reload(Runnable)</tt>.
 	 *
-	 * @return Whether the reset was successful or not
+	 * @param onReset Callback that is run on the main thread once the new snapshot has been published
 	 */
-	public boolean resetFromJar() {
+	public void resetFromJar(Runnable onReset) {
 		plugin.saveResource("config.yml", true);
-		plugin.reloadConfig();
-		return true;
+		reload(onReset);
 	}
 	
-	public boolean reload() {
-		plugin.reloadConfig();
-		return true;
+	/**
+	 * Reload the config from the disk. The files are read and compiled into a new snapshot
+	 * off of the main thread, the snapshot is then published atomically.
+	 *
+	 * @param onReload Callback that is run on the main thread once the new snapshot has been published
+	 */
+	public void reload(Runnable onReload) {
+		Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
+			File              configFile  = new File(plugin.getDataFolder(), "config.yml");
+			FileConfiguration newAccessor = YamlConfiguration.loadConfiguration(configFile);
+			InputStream       defaults    = plugin.getResource("config.yml");
+			if (defaults != null) {
+				newAccessor.setDefaults(YamlConfiguration.loadConfiguration(new InputStreamReader(defaults, StandardCharsets.UTF_8)));
+			}
+			ConfigSnapshot newSnapshot = loadSnapshot(newAccessor);
+			synchronized (this) {
+				accessor = newAccessor;
+				snapshot = newSnapshot;
+			}
+			Bukkit.getScheduler().runTask(plugin, onReload);
+		});
 	}
 	
 	/**
@@ -302,25 +391,25 @@ public class Config {
 	 * @return The current <tt>ListMode</tt>
 	 */
 	public ListMode getListMode() {
-		return listMode;
+		return snapshot.getListMode();
 	}
 	
 	/**
-	 * Get a list of the materials from the config
+	 * Get an unmodifiable list of the materials from the config
 	 *
 	 * @return The list of materials
 	 */
 	public List<Material> getMaterialList() {
-		return materialList;
+		return snapshot.getMaterialList();
 	}
 	
 	/**
-	 * Get a map of material to item amount
+	 * Get an unmodifiable map of material to item amount
 	 *
 	 * @return A map of material to item amount
 	 */
 	public Map<Material, Integer> getItemAmounts() {
-		return itemAmounts;
+		return snapshot.getItemAmounts();
 	}
 	
 	/**
@@ -331,13 +420,7 @@ public class Config {
 	 * @return Whether the item was found in the config
 	 */
 	public boolean containsUniqueItem(ItemStack item) {
-		for (ItemStack curItem : uniqueItemList) {
-			if (!curItem.isSimilar(item)) {
-				continue;
-			}
-			return true;
-		}
-		return false;
+		return snapshot.containsUniqueItem(item);
 	}
 	
 	/**
@@ -348,13 +431,7 @@ public class Config {
 	 * @return The <tt>ItemStack</tt> found with the same properties in the config
 	 */
 	public ItemStack getUniqueItem(ItemStack item) {
-		for (ItemStack curItem : uniqueItemList) {
-			if (!curItem.isSimilar(item)) {
-				continue;
-			}
-			return curItem;
-		}
-		return null;
+		return snapshot.getUniqueItem(item);
 	}
 	
 	/**
@@ -365,7 +442,7 @@ public class Config {
 	 * @return Whether the material was found or not
 	 */
 	public boolean containsMaterial(Material material) {
-		return materialList.contains(material);
+		return snapshot.containsMaterial(material);
 	}
 	
 	/**
@@ -376,7 +453,7 @@ public class Config {
 	 * @return Whether a custom amount for the material was found or not
 	 */
 	public boolean containsItemAmount(Material material) {
-		return itemAmounts.containsKey(material);
+		return snapshot.containsItemAmount(material);
 	}
 	
 	/**
@@ -385,7 +462,7 @@ public class Config {
 	 * @return The default max amount for items
 	 */
 	public int getMaxAmount() {
-		return maxAmount;
+		return snapshot.getMaxAmount();
 	}
 	
 	/**
@@ -395,9 +472,11 @@ public class Config {
 	 * @param player The player that requested the action
 	 * @param item   The item to add to the config
 	 */
-	public void addUniqueItem(Player player, ItemStack item) {
-		removeUniqueItem(player, item);
+	public synchronized void addUniqueItem(Player player, ItemStack item) {
+		List<ItemStack> uniqueItemList = new ArrayList<>(snapshot.getUniqueItemList());
+		uniqueItemList.remove(item);
 		uniqueItemList.add(item);
+		publish(snapshot.withUniqueItemList(uniqueItemList));
 	}
 	
 	/**
@@ -409,12 +488,14 @@ public class Config {
 	 *
 	 * @return Whether the action was successful or not
 	 */
-	public boolean addMaterial(Player player, Material material) {
+	public synchronized boolean addMaterial(Player player, Material material) {
 		if (containsMaterial(material)) {
 			player.sendMessage(accessor.getString("simplestack.warnings.material_already_exists"));
 			return false;
 		}
+		List<Material> materialList = new ArrayList<>(snapshot.getMaterialList());
 		materialList.add(material);
+		publish(snapshot.withMaterialList(materialList));
 		return true;
 	}
 	
@@ -427,14 +508,10 @@ public class Config {
 	 *
 	 * @return Whether the action was successful or not
 	 */
-	public boolean removeUniqueItem(Player player, ItemStack item) {
-		for (ItemStack curItem : uniqueItemList) {
-			if (!item.equals(curItem)) {
-				continue;
-			}
-			uniqueItemList.remove(curItem);
-			break;
-		}
+	public synchronized boolean removeUniqueItem(Player player, ItemStack item) {
+		List<ItemStack> uniqueItemList = new ArrayList<>(snapshot.getUniqueItemList());
+		uniqueItemList.remove(item);
+		publish(snapshot.withUniqueItemList(uniqueItemList));
 		return true;
 	}
 	
@@ -447,8 +524,10 @@ public class Config {
 	 *
 	 * @return Whether the action was successful or not
 	 */
-	public boolean removeMaterial(Player player, Material material) {
+	public synchronized boolean removeMaterial(Player player, Material material) {
+		List<Material> materialList = new ArrayList<>(snapshot.getMaterialList());
 		materialList.remove(material);
+		publish(snapshot.withMaterialList(materialList));
 		return true;
 	}
 	
@@ -458,8 +537,8 @@ public class Config {
 	 *
 	 * @param newMode The new <tt>ListMode</tt> to use in the config
 	 */
-	public void setListMode(ListMode newMode) {
-		this.listMode = newMode;
+	public synchronized void setListMode(ListMode newMode) {
+		publish(snapshot.withListMode(newMode));
 	}
 	
 	/**
@@ -470,11 +549,10 @@ public class Config {
 	 * @param material The material to add to the config
 	 * @param amount   The new max amount of the item
 	 */
-	public void addCustomAmount(Player player, Material material, int amount) {
-		if (hasCustomAmount(material)) {
-			removeCustomAmount(player, material);
-		}
+	public synchronized void addCustomAmount(Player player, Material material, int amount) {
+		Map<Material, Integer> itemAmounts = new HashMap<>(snapshot.getItemAmounts());
 		itemAmounts.put(material, amount);
+		publish(snapshot.withItemAmounts(itemAmounts));
 	}
 	
 	/**
@@ -484,12 +562,14 @@ public class Config {
 	 * @param player   The player that requested the action
 	 * @param material The material to remove from the config
 	 */
-	public void removeCustomAmount(Player player, Material material) {
+	public synchronized void removeCustomAmount(Player player, Material material) {
 		if (!hasCustomAmount(material)) {
 			player.sendMessage(accessor.getString("simplestack.warnings.custom_amount_does_not_exist"));
 			return;
 		}
+		Map<Material, Integer> itemAmounts = new HashMap<>(snapshot.getItemAmounts());
 		itemAmounts.remove(material);
+		publish(snapshot.withItemAmounts(itemAmounts));
 	}
 	
 	/**
@@ -497,8 +577,8 @@ public class Config {
 	 *
 	 * @param maxAmount The new max stack amount
 	 */
-	public void setMaxAmount(int maxAmount) {
-		this.maxAmount = maxAmount;
+	public synchronized void setMaxAmount(int maxAmount) {
+		publish(snapshot.withMaxAmount(maxAmount));
 	}
 	
 	/**
@@ -507,7 +587,7 @@ public class Config {
 	 * @return Should process hoppers
 	 */
 	public boolean shouldProcessHoppers() {
-		return hopperMovement;
+		return snapshot.shouldProcessHoppers();
 	}
 	
 	/**
@@ -515,17 +595,17 @@ public class Config {
 	 *
 	 * @param hopperMovement The new hopper processing state
 	 */
-	public void setHopperMovement(boolean hopperMovement) {
-		this.hopperMovement = hopperMovement;
+	public synchronized void setHopperMovement(boolean hopperMovement) {
+		publish(snapshot.withHopperMovement(hopperMovement));
 	}
 	
 	/**
-	 * Get the list of unique items from the config
+	 * Get an unmodifiable list of the unique items from the config
 	 *
 	 * @return The list of unique items
 	 */
 	public List<ItemStack> getUniqueItemList() {
-		return uniqueItemList;
+		return snapshot.getUniqueItemList();
 	}
 	
 	/**
@@ -533,14 +613,8 @@ public class Config {
 	 *
 	 * @param materialList The new list of materials to use
 	 */
-	public void setMaterialList(List<Material> materialList) {
-		this.materialList.clear();
-		for (Material material : materialList) {
-			if (material == null) {
-				continue;
-			}
-			this.materialList.add(material);
-		}
+	public synchronized void setMaterialList(List<Material> materialList) {
+		publish(snapshot.withMaterialList(materialList));
 	}
 	
 	/**
@@ -548,8 +622,8 @@ public class Config {
 	 *
 	 * @param uniqueItemList The new items list to use
 	 */
-	public void setUniqueItemList(List<ItemStack> uniqueItemList) {
-		this.uniqueItemList = uniqueItemList;
+	public synchronized void setUniqueItemList(List<ItemStack> uniqueItemList) {
+		publish(snapshot.withUniqueItemList(uniqueItemList));
 	}
 	
 	/**
@@ -557,8 +631,8 @@ public class Config {
 	 *
 	 * @param itemAmounts The new item amounts list
 	 */
-	public void setItemAmounts(Map<Material, Integer> itemAmounts) {
-		this.itemAmounts = itemAmounts;
+	public synchronized void setItemAmounts(Map<Material, Integer> itemAmounts) {
+		publish(snapshot.withItemAmounts(itemAmounts));
 	}
 	
 	/**
@@ -567,7 +641,7 @@ public class Config {
 	 * @return The ground stacking state
 	 */
 	public boolean processGroundItems() {
-		return groundStacks;
+		return snapshot.processGroundItems();
 	}
 	
 	/**
@@ -575,8 +649,8 @@ public class Config {
 	 *
 	 * @param groundStacks The new state for ground item stacking
 	 */
-	public void setGroundStacks(boolean groundStacks) {
-		this.groundStacks = groundStacks;
+	public synchronized void setGroundStacks(boolean groundStacks) {
+		publish(snapshot.withGroundStacks(groundStacks));
 	}
 	
 	/**
@@ -585,7 +659,7 @@ public class Config {
 	 * @return Creative drag state
 	 */
 	public boolean shouldCreativeDrag() {
-		return creativeDrag;
+		return snapshot.shouldCreativeDrag();
 	}
 	
 	/**
@@ -593,7 +667,7 @@ public class Config {
 	 *
 	 * @param creativeDrag The new creative drag state
 	 */
-	public void setCreativeDrag(boolean creativeDrag) {
-		this.creativeDrag = creativeDrag;
+	public synchronized void setCreativeDrag(boolean creativeDrag) {
+		publish(snapshot.withCreativeDrag(creativeDrag));
 	}
 }
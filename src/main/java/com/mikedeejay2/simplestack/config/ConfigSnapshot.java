@@ -0,0 +1,469 @@
+package com.mikedeejay2.simplestack.config;
+
+import org.bukkit.Material;
+import org.bukkit.inventory.ItemStack;
+
+import java.util.*;
+
+/**
+ * An immutable, pre-compiled snapshot of every value in the config. <p>
+ * The <tt>Config</tt> publishes a new snapshot every time a value changes, so a snapshot
+ * can be read from any thread without locking and never changes while it is being read.
+ * Every field is final and assigned by a constructor, so a snapshot is safely published through
+ * the volatile reference of the config. The <tt>with</tt> methods construct a new snapshot instead.
+ *
+ * @author Mikedeejay2
+ */
+public final class ConfigSnapshot {
+	
+	// List mode of the material list. Either Blacklist of Whitelist.
+	private final ListMode               listMode;
+	// Material list of the config (Item Type list in config)
+	private final List<Material>         materialList;
+	// Item amounts based on the item's material (Item Type amounts list in config)
+	private final Map<Material, Integer> itemAmounts;
+	// Unique items list from the unique_items.yml
+	private final List<ItemStack>        uniqueItemList;
+	// The max amount for all items in minecraft
+	private final int                    maxAmount;
+	// Whether custom hopper stacking occurs or not
+	private final boolean                hopperMovement;
+	// Whether custom ground stacking occurs or not
+	private final boolean                groundStacks;
+	// Whether the creative middle click dragging should always create a full stack
+	private final boolean                creativeDrag;
+	// The size in blocks of the cells that ground items are sorted into
+	private final double                 groundCellSize;
+	// The distance in blocks that ground items can be apart and still stack
+	private final double                 groundMergeRadius;
+	// The time in microseconds that ground stacking may use every tick
+	private final int                    groundTickBudget;
+	// The mode that inventories are synced to the client in after an emulated click
+	private final SyncMode               syncMode;
+	
+	// Compiled data
+	// Set of the materials in the material list
+	private final Set<Material>   materialSet;
+	// Index of the unique items list for fast lookups
+	private final UniqueItemIndex uniqueItemIndex;
+	// Max stack amount of every material compiled from the values above, indexed by Material ordinal
+	private final int[]           amountTable;
+	// Stack check verdict of every material, indexed by Material ordinal
+	private final StackVerdict[]  verdictTable;
+	
+	ConfigSnapshot(ListMode listMode, List<Material> materialList, Map<Material, Integer> itemAmounts, List<ItemStack> uniqueItemList, int maxAmount,
+	               boolean hopperMovement, boolean groundStacks, boolean creativeDrag, double groundCellSize, double groundMergeRadius,
+	               int groundTickBudget, SyncMode syncMode) {
+		this.listMode = listMode;
+		this.materialList = copyMaterials(materialList);
+		this.itemAmounts = copyItemAmounts(itemAmounts);
+		this.uniqueItemList = copyItems(uniqueItemList);
+		this.maxAmount = maxAmount;
+		this.hopperMovement = hopperMovement;
+		this.groundStacks = groundStacks;
+		this.creativeDrag = creativeDrag;
+		this.groundCellSize = groundCellSize;
+		this.groundMergeRadius = groundMergeRadius;
+		this.groundTickBudget = groundTickBudget;
+		this.syncMode = syncMode;
+		
+		// Compile the values into the lookup structures used by the getters
+		this.materialSet = EnumSet.noneOf(Material.class);
+		this.materialSet.addAll(this.materialList);
+		this.uniqueItemIndex = new UniqueItemIndex(this.uniqueItemList);
+		this.amountTable = compileAmounts();
+		this.verdictTable = compileVerdicts();
+	}
+	
+	/**
+	 * Copy a snapshot with new values that don't take part in compiling, so the compiled lookup
+	 * structures are shared with the other snapshot instead of being compiled again.
+	 *
+	 * @param other          The snapshot to copy
+	 * @param hopperMovement Whether custom hopper stacking occurs or not
+	 * @param groundStacks   Whether custom ground stacking occurs or not
+	 * @param creativeDrag   Whether the creative middle click dragging should always create a full stack
+	 */
+	private ConfigSnapshot(ConfigSnapshot other, boolean hopperMovement, boolean groundStacks, boolean creativeDrag) {
+		this.listMode = other.listMode;
+		this.materialList = other.materialList;
+		this.itemAmounts = other.itemAmounts;
+		this.uniqueItemList = other.uniqueItemList;
+		this.maxAmount = other.maxAmount;
+		this.hopperMovement = hopperMovement;
+		this.groundStacks = groundStacks;
+		this.creativeDrag = creativeDrag;
+		this.groundCellSize = other.groundCellSize;
+		this.groundMergeRadius = other.groundMergeRadius;
+		this.groundTickBudget = other.groundTickBudget;
+		this.syncMode = other.syncMode;
+		this.materialSet = other.materialSet;
+		this.uniqueItemIndex = other.uniqueItemIndex;
+		this.amountTable = other.amountTable;
+		this.verdictTable = other.verdictTable;
+	}
+	
+	/**
+	 * Compile the max amount of every material. Only called while the snapshot is being constructed.
+	 *
+	 * @return The max amount of every material by ordinal
+	 */
+	private int[] compileAmounts() {
+		Material[] materials = Material.values();
+		int[]      table     = new int[materials.length];
+		for (Material material : materials) {
+			table[material.ordinal()] = compileAmount(material);
+		}
+		return table;
+	}
+	
+	/**
+	 * Compile the stack check verdict of every material. Only called while the snapshot is being
+	 * constructed, after the amount table has been compiled.
+	 *
+	 * @return The verdict of every material by ordinal
+	 */
+	private StackVerdict[] compileVerdicts() {
+		Material[]     materials = Material.values();
+		StackVerdict[] verdicts  = new StackVerdict[materials.length];
+		for (Material material : materials) {
+			verdicts[material.ordinal()] = compileVerdict(material);
+		}
+		return verdicts;
+	}
+	
+	/**
+	 * Calculate the max amount of a material from the values of this snapshot,
+	 * not taking unique items into account.
+	 *
+	 * @param material The material to calculate the max amount for
+	 *
+	 * @return The max amount for the material
+	 */
+	private int compileAmount(Material material) {
+		Integer customAmount = itemAmounts.get(material);
+		if (customAmount != null) {
+			return customAmount;
+		}
+		boolean containsMaterial = materialSet.contains(material);
+		if ((listMode == ListMode.WHITELIST && containsMaterial) || (listMode == ListMode.BLACKLIST && !containsMaterial)) {
+			return maxAmount;
+		}
+		return material.getMaxStackSize();
+	}
+	
+	/**
+	 * Calculate the stack check verdict of a material from the values of this snapshot.
+	 * This mirrors <tt>CancelUtils.cancelStackCheck</tt> for every item of the material that
+	 * isn't a unique item. Materials with unique items always have to be checked per item.
+	 *
+	 * @param material The material to calculate the verdict for
+	 *
+	 * @return The verdict for the material
+	 */
+	private StackVerdict compileVerdict(Material material) {
+		if (material == Material.AIR) {
+			return StackVerdict.CANCEL;
+		}
+		if (uniqueItemIndex.containsMaterial(material)) {
+			return StackVerdict.CHECK;
+		}
+		int stackAmount = amountTable[material.ordinal()];
+		if (material.getMaxStackSize() == maxAmount && stackAmount == maxAmount) {
+			return StackVerdict.CANCEL;
+		}
+		if (listMode == ListMode.BLACKLIST) {
+			if (materialSet.contains(material)) {
+				return StackVerdict.CANCEL;
+			}
+		} else if (!materialSet.contains(material) && !itemAmounts.containsKey(material)) {
+			return StackVerdict.CANCEL;
+		}
+		if (stackAmount == material.getMaxStackSize()) {
+			return StackVerdict.CANCEL;
+		}
+		return StackVerdict.STACK;
+	}
+	
+	private static List<Material> copyMaterials(List<Material> materialList) {
+		List<Material> materials = new ArrayList<>();
+		for (Material material : materialList) {
+			if (material == null) {
+				continue;
+			}
+			materials.add(material);
+		}
+		return Collections.unmodifiableList(materials);
+	}
+	
+	private static Map<Material, Integer> copyItemAmounts(Map<Material, Integer> itemAmounts) {
+		Map<Material, Integer> amounts = new EnumMap<>(Material.class);
+		for (Map.Entry<Material, Integer> entry : itemAmounts.entrySet()) {
+			if (entry.getKey() == null) {
+				continue;
+			}
+			amounts.put(entry.getKey(), entry.getValue());
+		}
+		return Collections.unmodifiableMap(amounts);
+	}
+	
+	private static List<ItemStack> copyItems(List<ItemStack> uniqueItemList) {
+		List<ItemStack> items = new ArrayList<>();
+		for (ItemStack item : uniqueItemList) {
+			items.add(item.clone());
+		}
+		return Collections.unmodifiableList(items);
+	}
+	
+	/**
+	 * Get the max amount of an item, taking unique items and custom amounts into account.
+	 *
+	 * @param item The item to get the max amount for
+	 *
+	 * @return The max amount for this item.
+	 */
+	public int getAmount(ItemStack item) {
+		if (!uniqueItemIndex.isEmpty()) {
+			ItemStack uniqueItem = uniqueItemIndex.get(item);
+			if (uniqueItem != null) {
+				return uniqueItem.getAmount();
+			}
+		}
+		return amountTable[item.getType().ordinal()];
+	}
+	
+	/**
+	 * Get the max amount of a material from the compiled amount table.
+	 * This does not take unique items into account, see <tt>getAmount(ItemStack)</tt>.
+	 *
+	 * @param material The material to get the max amount for
+	 *
+	 * @return The max amount for the material
+	 */
+	public int getAmount(Material material) {
+		return amountTable[material.ordinal()];
+	}
+	
+	/**
+	 * Get the pre-compiled stack check verdict of a material.
+	 *
+	 * @param material The material to get the verdict for
+	 *
+	 * @return The verdict for the material
+	 */
+	public StackVerdict getStackVerdict(Material material) {
+		return verdictTable[material.ordinal()];
+	}
+	
+	/**
+	 * Return whether ground items are tracked the same way under another snapshot, meaning that the
+	 * ground stacking cell size and which items can be stacked are the same in both snapshots.
+	 *
+	 * @param other The snapshot to compare with
+	 *
+	 * @return Whether tracked ground items are still valid under the other snapshot
+	 */
+	public boolean hasSameGroundTracking(ConfigSnapshot other) {
+		return groundCellSize == other.groundCellSize && Arrays.equals(verdictTable, other.verdictTable) &&
+				uniqueItemList.equals(other.uniqueItemList);
+	}
+	
+	/**
+	 * Get the Material list's <tt>ListMode</tt>.
+	 *
+	 * @return The current <tt>ListMode</tt>
+	 */
+	public ListMode getListMode() {
+		return listMode;
+	}
+	
+	/**
+	 * Get an unmodifiable list of the materials from the config
+	 *
+	 * @return The list of materials
+	 */
+	public List<Material> getMaterialList() {
+		return materialList;
+	}
+	
+	/**
+	 * Get an unmodifiable map of material to item amount
+	 *
+	 * @return A map of material to item amount
+	 */
+	public Map<Material, Integer> getItemAmounts() {
+		return itemAmounts;
+	}
+	
+	/**
+	 * Get an unmodifiable list of the unique items from the config
+	 *
+	 * @return The list of unique items
+	 */
+	public List<ItemStack> getUniqueItemList() {
+		return uniqueItemList;
+	}
+	
+	/**
+	 * Get the index of the unique items from the config
+	 *
+	 * @return The unique item index
+	 */
+	public UniqueItemIndex getUniqueItemIndex() {
+		return uniqueItemIndex;
+	}
+	
+	/**
+	 * Return whether the material list contains a specific material or not
+	 *
+	 * @param material The material to search for
+	 *
+	 * @return Whether the material was found or not
+	 */
+	public boolean containsMaterial(Material material) {
+		return materialSet.contains(material);
+	}
+	
+	/**
+	 * Return whether the item amounts list contains a custom amount for a material or not
+	 *
+	 * @param material The material to search for
+	 *
+	 * @return Whether a custom amount for the material was found or not
+	 */
+	public boolean containsItemAmount(Material material) {
+		return itemAmounts.containsKey(material);
+	}
+	
+	/**
+	 * Return whether the config contains a unique item that matches the item specified
+	 *
+	 * @param item The <tt>ItemStack</tt> to search for
+	 *
+	 * @return Whether the item was found in the config
+	 */
+	public boolean containsUniqueItem(ItemStack item) {
+		return uniqueItemIndex.contains(item);
+	}
+	
+	/**
+	 * Get a unique item from the config based off of a reference item of the same properties
+	 *
+	 * @param item The <tt>ItemStack</tt> to find in the config
+	 *
+	 * @return The <tt>ItemStack</tt> found with the same properties in the config
+	 */
+	public ItemStack getUniqueItem(ItemStack item) {
+		return uniqueItemIndex.get(item);
+	}
+	
+	/**
+	 * Get the default max amount for items
+	 *
+	 * @return The default max amount for items
+	 */
+	public int getMaxAmount() {
+		return maxAmount;
+	}
+	
+	/**
+	 * Returns whether hoppers should process custom stacking or not
+	 *
+	 * @return Should process hoppers
+	 */
+	public boolean shouldProcessHoppers() {
+		return hopperMovement;
+	}
+	
+	/**
+	 * Get whether ground items should be processed to stack unstackables
+	 *
+	 * @return The ground stacking state
+	 */
+	public boolean processGroundItems() {
+		return groundStacks;
+	}
+	
+	/**
+	 * Get whether a creative inventory drag event should always create full stacks or not
+	 *
+	 * @return Creative drag state
+	 */
+	public boolean shouldCreativeDrag() {
+		return creativeDrag;
+	}
+	
+	/**
+	 * Get the size in blocks of the cells that ground items are sorted into when stacking
+	 *
+	 * @return The ground stacking cell size
+	 */
+	public double getGroundCellSize() {
+		return groundCellSize;
+	}
+	
+	/**
+	 * Get the distance in blocks that ground items can be apart and still stack together
+	 *
+	 * @return The ground stacking merge radius
+	 */
+	public double getGroundMergeRadius() {
+		return groundMergeRadius;
+	}
+	
+	/**
+	 * Get the time in microseconds that ground stacking may use every tick
+	 *
+	 * @return The ground stacking tick budget
+	 */
+	public int getGroundTickBudget() {
+		return groundTickBudget;
+	}
+	
+	/**
+	 * Get the mode that inventories are synced to the client in after an emulated click
+	 *
+	 * @return The current <tt>SyncMode</tt>
+	 */
+	public SyncMode getSyncMode() {
+		return syncMode;
+	}
+	
+	ConfigSnapshot withListMode(ListMode listMode) {
+		return new ConfigSnapshot(listMode, materialList, itemAmounts, uniqueItemList, maxAmount, hopperMovement, groundStacks,
+				creativeDrag, groundCellSize, groundMergeRadius, groundTickBudget, syncMode);
+	}
+	
+	ConfigSnapshot withMaterialList(List<Material> materialList) {
+		return new ConfigSnapshot(listMode, materialList, itemAmounts, uniqueItemList, maxAmount, hopperMovement, groundStacks,
+				creativeDrag, groundCellSize, groundMergeRadius, groundTickBudget, syncMode);
+	}
+	
+	ConfigSnapshot withItemAmounts(Map<Material, Integer> itemAmounts) {
+		return new ConfigSnapshot(listMode, materialList, itemAmounts, uniqueItemList, maxAmount, hopperMovement, groundStacks,
+				creativeDrag, groundCellSize, groundMergeRadius, groundTickBudget, syncMode);
+	}
+	
+	ConfigSnapshot withUniqueItemList(List<ItemStack> uniqueItemList) {
+		return new ConfigSnapshot(listMode, materialList, itemAmounts, uniqueItemList, maxAmount, hopperMovement, groundStacks,
+				creativeDrag, groundCellSize, groundMergeRadius, groundTickBudget, syncMode);
+	}
+	
+	ConfigSnapshot withMaxAmount(int maxAmount) {
+		return new ConfigSnapshot(listMode, materialList, itemAmounts, uniqueItemList, maxAmount, hopperMovement, groundStacks,
+				creativeDrag, groundCellSize, groundMergeRadius, groundTickBudget, syncMode);
+	}
+	
+	ConfigSnapshot withHopperMovement(boolean hopperMovement) {
+		return new ConfigSnapshot(this, hopperMovement, groundStacks, creativeDrag);
+	}
+	
+	ConfigSnapshot withGroundStacks(boolean groundStacks) {
+		return new ConfigSnapshot(this, hopperMovement, groundStacks, creativeDrag);
+	}
+	
+	ConfigSnapshot withCreativeDrag(boolean creativeDrag) {
+		return new ConfigSnapshot(this, hopperMovement, groundStacks, creativeDrag);
+	}
+	
+}
@@ -0,0 +1,22 @@
+package com.mikedeejay2.simplestack.config;
+
+/**
+ * The pre-compiled result of <tt>CancelUtils.cancelStackCheck</tt> for a material. <p>
+ * <p>
+ * This enum contains three values:
+ * <ul>
+ *     <li>Cancel - Items of the material are never affected by Simple Stack</li>
+ *     <li>Stack - Items of the material are always affected by Simple Stack</li>
+ *     <li>Check - A unique item of the material exists, so every item has to be checked</li>
+ * </ul>
+ *
+ * @author Mikedeejay2
+ */
+public enum StackVerdict {
+	// The stack check always cancels for this material
+	CANCEL,
+	// The stack check never cancels for this material
+	STACK,
+	// The material has unique items, the full stack check has to be run
+	CHECK;
+}
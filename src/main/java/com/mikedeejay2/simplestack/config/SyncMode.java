@@ -0,0 +1,19 @@
+package com.mikedeejay2.simplestack.config;
+
+/**
+ * The mode that inventories are synced to the client in after Simple Stack
+ * has emulated a click. <p>
+ * <p>
+ * This enum simply contains two values:
+ * <ul>
+ *     <li>Full - Resend the whole open window</li>
+ *     <li>Diff - Only send the slots that changed and the cursor</li>
+ * </ul>
+ *
+ * @author Mikedeejay2
+ */
+public enum SyncMode {
+	// The whole open window is resent after every emulated click
+	FULL, // Only the slots that changed and the cursor are sent after an emulated click
+	DIFF;
+}
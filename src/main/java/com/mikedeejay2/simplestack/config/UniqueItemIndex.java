@@ -0,0 +1,113 @@
+package com.mikedeejay2.simplestack.config;
+
+import org.bukkit.Material;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.Damageable;
+import org.bukkit.inventory.meta.ItemMeta;
+
+import java.util.*;
+
+/**
+ * Index of the unique items in the config. Items are bucketed by their material and
+ * a cheap fingerprint of their meta so that <tt>ItemStack.isSimilar</tt> only has to be run
+ * on the few items that could possibly match instead of every unique item in the config.
+ *
+ * @author Mikedeejay2
+ */
+public final class UniqueItemIndex {
+	
+	// Unique items bucketed by material and then by meta fingerprint
+	private final Map<Material, Map<Integer, List<ItemStack>>> buckets;
+	
+	public UniqueItemIndex(List<ItemStack> uniqueItems) {
+		this.buckets = new EnumMap<>(Material.class);
+		for (ItemStack item : uniqueItems) {
+			buckets.computeIfAbsent(item.getType(), material -> new HashMap<>())
+					.computeIfAbsent(fingerprint(item), fingerprint -> new ArrayList<>(1))
+					.add(item);
+		}
+	}
+	
+	/**
+	 * Get the unique item that is similar to the item specified
+	 *
+	 * @param item The <tt>ItemStack</tt> to find in the index
+	 *
+	 * @return The unique item with the same properties, null if none was found
+	 */
+	public ItemStack get(ItemStack item) {
+		Map<Integer, List<ItemStack>> materialBucket = buckets.get(item.getType());
+		if (materialBucket == null) {
+			return null;
+		}
+		List<ItemStack> candidates = materialBucket.get(fingerprint(item));
+		if (candidates == null) {
+			return null;
+		}
+		for (ItemStack candidate : candidates) {
+			if (candidate.isSimilar(item)) {
+				return candidate;
+			}
+		}
+		return null;
+	}
+	
+	/**
+	 * Return whether the index contains a unique item that is similar to the item specified
+	 *
+	 * @param item The <tt>ItemStack</tt> to search for
+	 *
+	 * @return Whether a similar unique item was found
+	 */
+	public boolean contains(ItemStack item) {
+		return get(item) != null;
+	}
+	
+	/**
+	 * Return whether any unique item of a material exists in the index. If this returns false
+	 * no item of the material can ever be a unique item.
+	 *
+	 * @param material The material to search for
+	 *
+	 * @return Whether a unique item of the material exists
+	 */
+	public boolean containsMaterial(Material material) {
+		return buckets.containsKey(material);
+	}
+	
+	/**
+	 * Return whether the index is empty
+	 *
+	 * @return Whether the index is empty
+	 */
+	public boolean isEmpty() {
+		return buckets.isEmpty();
+	}
+	
+	/**
+	 * Calculate a cheap fingerprint of an item's meta. Two items that are similar always have the
+	 * same fingerprint, items with different fingerprints can never be similar.
+	 *
+	 * @param item The item to calculate the fingerprint for
+	 *
+	 * @return The fingerprint of the item
+	 */
+	public static int fingerprint(ItemStack item) {
+		if (!item.hasItemMeta()) {
+			return 0;
+		}
+		ItemMeta meta        = item.getItemMeta();
+		int      fingerprint = 1;
+		if (meta.hasDisplayName()) {
+			fingerprint = 31 * fingerprint + meta.getDisplayName().hashCode();
+		}
+		if (meta.hasCustomModelData()) {
+			fingerprint = 31 * fingerprint + meta.getCustomModelData();
+		}
+		if (meta instanceof Damageable && ((Damageable)meta).hasDamage()) {
+			fingerprint = 31 * fingerprint + ((Damageable)meta).getDamage();
+		}
+		return fingerprint;
+	}
+	
+}
@@ -0,0 +1,103 @@
+package com.mikedeejay2.simplestack.core;
+
+import java.util.Arrays;
+
+/**
+ * A plan of merges between the entries of a <tt>GroundSnapshot</tt>. The plan is made of clusters
+ * of similar items that are near each other. Every member of a cluster has a new amount, and
+ * members with a new amount of 0 are absorbed into the other members of the cluster.
+ *
+ * @author Mikedeejay2
+ */
+public final class GroundMergePlan {
+	
+	// The amount of clusters in the plan
+	private int   size;
+	// The amount of members of all clusters in the plan
+	private int   memberCount;
+	// The index of the first member of every cluster
+	private int[] starts;
+	// The entry index of every member
+	private int[] members;
+	// The new amount of every member
+	private int[] amounts;
+	
+	public GroundMergePlan() {
+		this.starts = new int[16];
+		this.members = new int[16];
+		this.amounts = new int[16];
+	}
+	
+	/**
+	 * Add a cluster to the plan
+	 *
+	 * @param clusterMembers The entry index of every member of the cluster
+	 * @param clusterAmounts The new amount of every member of the cluster
+	 */
+	public void addCluster(int[] clusterMembers, int[] clusterAmounts) {
+		if (size == starts.length) {
+			starts = Arrays.copyOf(starts, size * 2);
+		}
+		int newCount = memberCount + clusterMembers.length;
+		if (newCount > members.length) {
+			int capacity = Math.max(newCount, members.length * 2);
+			members = Arrays.copyOf(members, capacity);
+			amounts = Arrays.copyOf(amounts, capacity);
+		}
+		System.arraycopy(clusterMembers, 0, members, memberCount, clusterMembers.length);
+		System.arraycopy(clusterAmounts, 0, amounts, memberCount, clusterAmounts.length);
+		starts[size++] = memberCount;
+		memberCount = newCount;
+	}
+	
+	/**
+	 * Add all clusters of another plan to the end of this plan
+	 *
+	 * @param other The plan to add
+	 *
+	 * @return This plan
+	 */
+	public GroundMergePlan addAll(GroundMergePlan other) {
+		for (int cluster = 0; cluster < other.size; ++cluster) {
+			int start = other.getStart(cluster);
+			int end   = other.getEnd(cluster);
+			addCluster(Arrays.copyOfRange(other.members, start, end), Arrays.copyOfRange(other.amounts, start, end));
+		}
+		return this;
+	}
+	
+	public int size() {
+		return size;
+	}
+	
+	/**
+	 * Get the index of the first member of a cluster
+	 *
+	 * @param cluster The index of the cluster
+	 *
+	 * @return The index of the first member
+	 */
+	public int getStart(int cluster) {
+		return starts[cluster];
+	}
+	
+	/**
+	 * Get the index after the last member of a cluster
+	 *
+	 * @param cluster The index of the cluster
+	 *
+	 * @return The index after the last member
+	 */
+	public int getEnd(int cluster) {
+		return cluster + 1 < size ? starts[cluster + 1] : memberCount;
+	}
+	
+	public int getMember(int member) {
+		return members[member];
+	}
+	
+	public int getAmount(int member) {
+		return amounts[member];
+	}
+	
+}
@@ -0,0 +1,170 @@
+package com.mikedeejay2.simplestack.core;
+
+import java.util.*;
+
+/**
+ * Plans the merges of a <tt>GroundSnapshot</tt>. Planning only reads the snapshot, so it is safe
+ * to run on worker threads. Entries are grouped by similarity class and every group is planned
+ * in parallel as its own task. <p>
+ * Within a group, every pair of items that are in range of each other are joined together with
+ * a union-find, so that a whole pile of items collapses into the fewest possible items in a single
+ * plan instead of being merged pair by pair over many passes.
+ *
+ * @author Mikedeejay2
+ */
+public final class GroundMergePlanner {
+	
+	private GroundMergePlanner() {
+	}
+	
+	/**
+	 * Plan the merges of every entry in a snapshot. When run from inside of a <tt>ForkJoinPool</tt>
+	 * the groups are planned by the workers of that pool.
+	 *
+	 * @param snapshot The snapshot to plan the merges of
+	 * @param radius   The radius in blocks that items can be apart and still stack
+	 *
+	 * @return The merge plan
+	 */
+	public static GroundMergePlan plan(GroundSnapshot snapshot, double radius) {
+		Map<Integer, List<Integer>> groups = new HashMap<>();
+		for (int i = 0; i < snapshot.size(); ++i) {
+			groups.computeIfAbsent(snapshot.getSimilarityClass(i), key -> new ArrayList<>()).add(i);
+		}
+		return groups.values().parallelStream()
+				.filter(group -> group.size() > 1)
+				.map(group -> planGroup(snapshot, group, radius))
+				.collect(GroundMergePlan::new, GroundMergePlan::addAll, GroundMergePlan::addAll);
+	}
+	
+	/**
+	 * Plan the merges of a group of entries with the same similarity class. The group is sorted
+	 * along the x axis so that every entry only has to be compared with the entries that follow
+	 * it until they are further than the radius away. Entries that are in range of each other are
+	 * joined into clusters, and every cluster is planned on its own.
+	 *
+	 * @param snapshot The snapshot that the group is from
+	 * @param group    The indices of the entries in the group
+	 * @param radius   The radius in blocks that items can be apart and still stack
+	 *
+	 * @return The merge plan of the group
+	 */
+	private static GroundMergePlan planGroup(GroundSnapshot snapshot, List<Integer> group, double radius) {
+		int[] order   = group.stream()
+				.sorted(Comparator.comparingDouble(snapshot::getX))
+				.mapToInt(Integer::intValue)
+				.toArray();
+		int[] parents = new int[order.length];
+		for (int i = 0; i < order.length; ++i) {
+			parents[i] = i;
+		}
+		for (int i = 0; i < order.length; ++i) {
+			int first = order[i];
+			for (int j = i + 1; j < order.length; ++j) {
+				int second = order[j];
+				if (snapshot.getX(second) - snapshot.getX(first) > radius) {
+					break;
+				}
+				if (snapshot.getMaxAmount(second) != snapshot.getMaxAmount(first) ||
+						Math.abs(snapshot.getY(second) - snapshot.getY(first)) > radius ||
+						Math.abs(snapshot.getZ(second) - snapshot.getZ(first)) > radius) {
+					continue;
+				}
+				union(parents, i, j);
+			}
+		}
+		
+		// Bucket the entries by the root of their cluster
+		int[] roots  = new int[order.length];
+		int[] starts = new int[order.length + 1];
+		for (int i = 0; i < order.length; ++i) {
+			roots[i] = find(parents, i);
+			++starts[roots[i] + 1];
+		}
+		for (int i = 0; i < order.length; ++i) {
+			starts[i + 1] += starts[i];
+		}
+		int[] bucket  = new int[order.length];
+		int[] offsets = Arrays.copyOf(starts, order.length);
+		for (int i = 0; i < order.length; ++i) {
+			bucket[offsets[roots[i]]++] = order[i];
+		}
+		
+		GroundMergePlan plan = new GroundMergePlan();
+		for (int root = 0; root < order.length; ++root) {
+			if (starts[root + 1] - starts[root] > 1) {
+				planCluster(snapshot, Arrays.copyOfRange(bucket, starts[root], starts[root + 1]), plan);
+			}
+		}
+		return plan;
+	}
+	
+	/**
+	 * Plan a single cluster. The total amount of the cluster is put into the fewest amount of items
+	 * that can hold it. The items that already have the largest amounts are kept so that the least
+	 * amount of items have to change, and every other item is absorbed.
+	 *
+	 * @param snapshot The snapshot that the cluster is from
+	 * @param cluster  The entry indices of the members of the cluster
+	 * @param plan     The plan to add the cluster to
+	 */
+	private static void planCluster(GroundSnapshot snapshot, int[] cluster, GroundMergePlan plan) {
+		int    maxAmount = snapshot.getMaxAmount(cluster[0]);
+		int    total     = 0;
+		long[] sorted    = new long[cluster.length];
+		for (int i = 0; i < cluster.length; ++i) {
+			int amount = snapshot.getAmount(cluster[i]);
+			total += amount;
+			// Sort by amount from largest to smallest, ties are broken by entry index
+			sorted[i] = (long)(Integer.MAX_VALUE - amount) << 32 | cluster[i];
+		}
+		int survivors = (total + maxAmount - 1) / maxAmount;
+		if (survivors >= cluster.length) {
+			return;
+		}
+		Arrays.sort(sorted);
+		int[] members = new int[cluster.length];
+		int[] amounts = new int[cluster.length];
+		for (int i = 0; i < cluster.length; ++i) {
+			int amount = Math.min(total, maxAmount);
+			members[i] = (int)sorted[i];
+			amounts[i] = amount;
+			total -= amount;
+		}
+		plan.addCluster(members, amounts);
+	}
+	
+	/**
+	 * Find the root of an element of a union-find, halving the path along the way
+	 *
+	 * @param parents The parent of every element
+	 * @param element The element to find the root of
+	 *
+	 * @return The root of the element
+	 */
+	private static int find(int[] parents, int element) {
+		while (parents[element] != element) {
+			parents[element] = parents[parents[element]];
+			element = parents[element];
+		}
+		return element;
+	}
+	
+	/**
+	 * Join the sets of two elements of a union-find
+	 *
+	 * @param parents The parent of every element
+	 * @param first   The first element
+	 * @param second  The second element
+	 */
+	private static void union(int[] parents, int first, int second) {
+		int firstRoot  = find(parents, first);
+		int secondRoot = find(parents, second);
+		if (firstRoot < secondRoot) {
+			parents[secondRoot] = firstRoot;
+		} else if (secondRoot < firstRoot) {
+			parents[firstRoot] = secondRoot;
+		}
+	}
+	
+}
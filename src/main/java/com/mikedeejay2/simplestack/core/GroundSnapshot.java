@@ -0,0 +1,121 @@
+package com.mikedeejay2.simplestack.core;
+
+import java.util.Arrays;
+
+/**
+ * Compact primitive snapshot of items on the ground. The snapshot is taken on the main thread
+ * so that merges can be planned on a worker thread without touching any entities or <tt>ItemStacks</tt>.
+ * Entries are stored column by column and referenced by their index.
+ *
+ * @author Mikedeejay2
+ */
+public final class GroundSnapshot {
+	
+	// The amount of entries in the snapshot
+	private int      size;
+	// The entity id of every entry
+	private int[]    entityIds;
+	// The location of every entry
+	private double[] x;
+	private double[] y;
+	private double[] z;
+	// The similarity class of every entry, entries of the same class are similar to each other
+	private int[]    classes;
+	// The item amount of every entry
+	private int[]    amounts;
+	// The max amount that every entry can stack to
+	private int[]    maxAmounts;
+	
+	public GroundSnapshot(int capacity) {
+		capacity = Math.max(capacity, 16);
+		this.entityIds = new int[capacity];
+		this.x = new double[capacity];
+		this.y = new double[capacity];
+		this.z = new double[capacity];
+		this.classes = new int[capacity];
+		this.amounts = new int[capacity];
+		this.maxAmounts = new int[capacity];
+	}
+	
+	/**
+	 * Add an entry to the snapshot
+	 *
+	 * @param entityId        The entity id of the item
+	 * @param x               The x location of the item
+	 * @param y               The y location of the item
+	 * @param z               The z location of the item
+	 * @param similarityClass The similarity class of the item, only items of the same class can stack
+	 * @param amount          The amount of the item
+	 * @param maxAmount       The max amount that the item can stack to
+	 *
+	 * @return The index of the new entry
+	 */
+	public int add(int entityId, double x, double y, double z, int similarityClass, int amount, int maxAmount) {
+		if (size == entityIds.length) {
+			grow();
+		}
+		this.entityIds[size] = entityId;
+		this.x[size] = x;
+		this.y[size] = y;
+		this.z[size] = z;
+		this.classes[size] = similarityClass;
+		this.amounts[size] = amount;
+		this.maxAmounts[size] = maxAmount;
+		return size++;
+	}
+	
+	/**
+	 * Double the capacity of every column
+	 */
+	private void grow() {
+		int capacity = entityIds.length * 2;
+		entityIds = Arrays.copyOf(entityIds, capacity);
+		x = Arrays.copyOf(x, capacity);
+		y = Arrays.copyOf(y, capacity);
+		z = Arrays.copyOf(z, capacity);
+		classes = Arrays.copyOf(classes, capacity);
+		amounts = Arrays.copyOf(amounts, capacity);
+		maxAmounts = Arrays.copyOf(maxAmounts, capacity);
+	}
+	
+	public int size() {
+		return size;
+	}
+	
+	public int getEntityId(int index) {
+		return entityIds[index];
+	}
+	
+	public double getX(int index) {
+		return x[index];
+	}
+	
+	public double getY(int index) {
+		return y[index];
+	}
+	
+	public double getZ(int index) {
+		return z[index];
+	}
+	
+	public int getAmount(int index) {
+		return amounts[index];
+	}
+	
+	public int getMaxAmount(int index) {
+		return maxAmounts[index];
+	}
+	
+	/**
+	 * Get the similarity class of an entry. Two entries of the same class hold items that are
+	 * <tt>isSimilar</tt> to each other, which is decided when the snapshot is taken.
+	 *
+	 * @param index The index of the entry
+	 *
+	 * @return The similarity class
+	 */
+	public int getSimilarityClass(int index) {
+		return classes[index];
+	}
+	
+}
@@ -0,0 +1,89 @@
+package com.mikedeejay2.simplestack.core;
+
+import java.util.Arrays;
+
+/**
+ * A <tt>SlotArray</tt> backed by plain int arrays. Used to run the stacking algorithms
+ * without a server, for example in benchmarks.
+ *
+ * @author Mikedeejay2
+ */
+public final class IntSlotArray implements SlotArray {
+	
+	// The item id of every slot
+	private final int[] items;
+	// The amount of every slot
+	private final int[] amounts;
+	// The max amount of every item id
+	private       int[] maxAmounts;
+	
+	public IntSlotArray(int size) {
+		this.items = new int[size];
+		this.amounts = new int[size];
+		this.maxAmounts = new int[8];
+	}
+	
+	/**
+	 * Set the max amount that an item can stack to
+	 *
+	 * @param item      The id of the item
+	 * @param maxAmount The max amount of the item
+	 */
+	public void setMaxAmount(int item, int maxAmount) {
+		if (item >= maxAmounts.length) {
+			maxAmounts = Arrays.copyOf(maxAmounts, Math.max(item + 1, maxAmounts.length * 2));
+		}
+		maxAmounts[item] = maxAmount;
+	}
+	
+	/**
+	 * Copy the items and amounts of the slots of another slot array of the same size into this
+	 * slot array. Max amounts are not copied.
+	 *
+	 * @param other The slot array to copy
+	 */
+	public void copyFrom(IntSlotArray other) {
+		System.arraycopy(other.items, 0, items, 0, items.length);
+		System.arraycopy(other.amounts, 0, amounts, 0, amounts.length);
+	}
+	
+	/**
+	 * Empty every slot
+	 */
+	public void clear() {
+		Arrays.fill(items, EMPTY);
+		Arrays.fill(amounts, 0);
+	}
+	
+	@Override
+	public int size() {
+		return items.length;
+	}
+	
+	@Override
+	public int getItem(int slot) {
+		return items[slot];
+	}
+	
+	@Override
+	public int getAmount(int slot) {
+		return amounts[slot];
+	}
+	
+	@Override
+	public int getMaxAmount(int item) {
+		return item < maxAmounts.length ? maxAmounts[item] : 0;
+	}
+	
+	@Override
+	public void setSlot(int slot, int item, int amount) {
+		if (item == EMPTY || amount <= 0) {
+			items[slot] = EMPTY;
+			amounts[slot] = 0;
+			return;
+		}
+		items[slot] = item;
+		amounts[slot] = amount;
+	}
+	
+}
@@ -0,0 +1,58 @@
+package com.mikedeejay2.simplestack.core;
+
+/**
+ * A fixed amount of slots that each hold an amount of an item. Items are only known by an id
+ * so that the algorithms in <tt>StackAlgorithms</tt> don't depend on Bukkit. Two slots with the
+ * same id hold similar items, and a slot with the id <tt>EMPTY</tt> holds nothing.
+ *
+ * @author Mikedeejay2
+ */
+public interface SlotArray {
+	
+	// The id of an empty slot
+	int EMPTY = 0;
+	
+	/**
+	 * Get the amount of slots
+	 *
+	 * @return The amount of slots
+	 */
+	int size();
+	
+	/**
+	 * Get the id of the item in a slot
+	 *
+	 * @param slot The slot to get
+	 *
+	 * @return The id of the item, <tt>EMPTY</tt> if the slot is empty
+	 */
+	int getItem(int slot);
+	
+	/**
+	 * Get the amount of the item in a slot
+	 *
+	 * @param slot The slot to get
+	 *
+	 * @return The amount of the item, 0 if the slot is empty
+	 */
+	int getAmount(int slot);
+	
+	/**
+	 * Get the max amount that an item can stack to
+	 *
+	 * @param item The id of the item
+	 *
+	 * @return The max amount of the item
+	 */
+	int getMaxAmount(int item);
+	
+	/**
+	 * Set the item and amount of a slot. An amount of 0 or less empties the slot.
+	 *
+	 * @param slot   The slot to set
+	 * @param item   The id of the new item
+	 * @param amount The new amount
+	 */
+	void setSlot(int slot, int item, int amount);
+	
+}
@@ -0,0 +1,264 @@
+package com.mikedeejay2.simplestack.core;
+
+/**
+ * The stacking algorithms of Simple Stack, written against <tt>SlotArray</tt> and plain amounts
+ * instead of Bukkit inventories. The Bukkit side adapts inventories to slot arrays and calls these,
+ * so the algorithms can be benchmarked and checked without a server.
+ *
+ * @author Mikedeejay2
+ */
+public final class StackAlgorithms {
+	
+	private StackAlgorithms() {
+	}
+	
+	/**
+	 * Calculate the amount of a stack after another stack of the same item has been merged into it.
+	 * Whatever doesn't fit (<tt>targetAmount + inputAmount</tt> minus the result) stays in the input stack.
+	 *
+	 * @param targetAmount The amount of the stack being merged into
+	 * @param inputAmount  The amount of the stack being merged
+	 * @param maxAmount    The max amount that the item can stack to
+	 *
+	 * @return The new amount of the target stack
+	 */
+	public static int merge(int targetAmount, int inputAmount, int maxAmount) {
+		return Math.min(targetAmount + inputAmount, maxAmount);
+	}
+	
+	/**
+	 * Merge an amount of an item into the stacks of the same item in a range of slots, in order.
+	 * Empty slots are skipped.
+	 *
+	 * @param slots     The slots to merge into
+	 * @param item      The id of the item
+	 * @param amount    The amount of the item to merge
+	 * @param startSlot The first slot of the range
+	 * @param endSlot   The slot after the last slot of the range
+	 *
+	 * @return The amount that couldn't be merged
+	 */
+	public static int fillPartialStacks(SlotArray slots, int item, int amount, int startSlot, int endSlot) {
+		int maxAmount = slots.getMaxAmount(item);
+		for (int slot = startSlot; slot < endSlot && amount > 0; ++slot) {
+			if (slots.getItem(slot) != item) {
+				continue;
+			}
+			int slotAmount = slots.getAmount(slot);
+			int newAmount  = merge(slotAmount, amount, maxAmount);
+			amount = slotAmount + amount - newAmount;
+			if (newAmount != slotAmount) {
+				slots.setSlot(slot, item, newAmount);
+			}
+		}
+		return amount;
+	}
+	
+	/**
+	 * Find the first empty slot in a range of slots
+	 *
+	 * @param slots     The slots to search
+	 * @param startSlot The first slot of the range
+	 * @param endSlot   The slot after the last slot of the range
+	 * @param reverse   Whether to search from the end of the range
+	 *
+	 * @return The empty slot, -1 if every slot in the range is occupied
+	 */
+	public static int findEmptySlot(SlotArray slots, int startSlot, int endSlot, boolean reverse) {
+		if (!reverse) {
+			for (int slot = startSlot; slot < endSlot; ++slot) {
+				if (slots.getItem(slot) == SlotArray.EMPTY) {
+					return slot;
+				}
+			}
+		} else {
+			for (int slot = endSlot - 1; slot >= startSlot; --slot) {
+				if (slots.getItem(slot) == SlotArray.EMPTY) {
+					return slot;
+				}
+			}
+		}
+		return -1;
+	}
+	
+	/**
+	 * Put an amount of an item into the empty slots of a range of slots, in order. Every empty
+	 * slot receives up to the max amount of the item.
+	 *
+	 * @param slots     The slots to fill
+	 * @param item      The id of the item
+	 * @param amount    The amount of the item to put into the slots
+	 * @param startSlot The first slot of the range
+	 * @param endSlot   The slot after the last slot of the range
+	 *
+	 * @return The amount that didn't fit
+	 */
+	public static int fillEmptySlots(SlotArray slots, int item, int amount, int startSlot, int endSlot) {
+		int maxAmount = slots.getMaxAmount(item);
+		for (int slot = startSlot; slot < endSlot && amount > 0; ++slot) {
+			if (slots.getItem(slot) != SlotArray.EMPTY) {
+				continue;
+			}
+			int slotAmount = Math.min(amount, maxAmount);
+			slots.setSlot(slot, item, slotAmount);
+			amount -= slotAmount;
+		}
+		return amount;
+	}
+	
+	/**
+	 * Calculate how much of an item fits into a range of slots, counting the space left in
+	 * stacks of the item and the empty slots
+	 *
+	 * @param slots     The slots to check
+	 * @param item      The id of the item
+	 * @param startSlot The first slot of the range
+	 * @param endSlot   The slot after the last slot of the range
+	 *
+	 * @return The amount of the item that fits
+	 */
+	public static int capacity(SlotArray slots, int item, int startSlot, int endSlot) {
+		int maxAmount = slots.getMaxAmount(item);
+		int capacity  = 0;
+		for (int slot = startSlot; slot < endSlot; ++slot) {
+			int slotItem = slots.getItem(slot);
+			if (slotItem == SlotArray.EMPTY) {
+				capacity += maxAmount;
+			} else if (slotItem == item) {
+				capacity += Math.max(maxAmount - slots.getAmount(slot), 0);
+			}
+		}
+		return capacity;
+	}
+	
+	/**
+	 * Count the amount of an item in all slots
+	 *
+	 * @param slots The slots to count in
+	 * @param item  The id of the item
+	 *
+	 * @return The amount of the item
+	 */
+	public static int count(SlotArray slots, int item) {
+		int amount = 0;
+		for (int slot = 0; slot < slots.size(); ++slot) {
+			if (slots.getItem(slot) == item) {
+				amount += slots.getAmount(slot);
+			}
+		}
+		return amount;
+	}
+	
+	/**
+	 * Add an amount of an item to the slots. Stacks of the item are filled first, then empty slots.
+	 *
+	 * @param slots  The slots to add to
+	 * @param item   The id of the item
+	 * @param amount The amount of the item to add
+	 *
+	 * @return The amount that was added
+	 */
+	public static int add(SlotArray slots, int item, int amount) {
+		int remaining = fillPartialStacks(slots, item, amount, 0, slots.size());
+		remaining = fillEmptySlots(slots, item, remaining, 0, slots.size());
+		return amount - remaining;
+	}
+	
+	/**
+	 * Remove an amount of an item from the slots, in order
+	 *
+	 * @param slots  The slots to remove from
+	 * @param item   The id of the item
+	 * @param amount The amount of the item to remove
+	 *
+	 * @return The amount that was removed
+	 */
+	public static int remove(SlotArray slots, int item, int amount) {
+		int remaining = amount;
+		for (int slot = 0; slot < slots.size() && remaining > 0; ++slot) {
+			if (slots.getItem(slot) != item) {
+				continue;
+			}
+			int slotAmount = slots.getAmount(slot);
+			int removed    = Math.min(slotAmount, remaining);
+			slots.setSlot(slot, item, slotAmount - removed);
+			remaining -= removed;
+		}
+		return amount - remaining;
+	}
+	
+	/**
+	 * Move an amount of an item from one set of slots to another (hopper transfer). Only the amount
+	 * that fit into the destination is removed from the source.
+	 *
+	 * @param from     The source slots
+	 * @param fromItem The id of the item in the source slots
+	 * @param to       The destination slots
+	 * @param toItem   The id of the item in the destination slots
+	 * @param amount   The amount of the item to move
+	 *
+	 * @return The amount that was moved
+	 */
+	public static int transfer(SlotArray from, int fromItem, SlotArray to, int toItem, int amount) {
+		int amountToMove = Math.min(amount, count(from, fromItem));
+		if (amountToMove <= 0) {
+			return 0;
+		}
+		int amountMoved = add(to, toItem, amountToMove);
+		remove(from, fromItem, amountMoved);
+		return amountMoved;
+	}
+	
+	/**
+	 * Calculate how many trades of a villager can be made at once, which is when the result of the
+	 * trade is shift clicked. The result slot already holds the result of one trade and ends up holding
+	 * <tt>(trades + 1) * resultAmount - 1</tt> items, which has to fit in <tt>maxAmount</tt>.
+	 *
+	 * @param inputAmount1 The amount of the first ingredient in the first input slot
+	 * @param costAmount1  The amount of the first ingredient that one trade costs, 0 if it costs none
+	 * @param inputAmount2 The amount of the second ingredient in the second input slot
+	 * @param costAmount2  The amount of the second ingredient that one trade costs, 0 if it costs none
+	 * @param usesLeft     The amount of times that the trade can still be used
+	 * @param resultAmount The amount of the result of one trade
+	 * @param maxAmount    The max amount that the result can stack to
+	 *
+	 * @return The amount of trades
+	 */
+	public static int tradeCount(int inputAmount1, int costAmount1, int inputAmount2, int costAmount2, int usesLeft, int resultAmount, int maxAmount) {
+		if (resultAmount <= 0) {
+			return 0;
+		}
+		int trades = Math.min(maxAmount, (maxAmount + 1) / resultAmount - 1);
+		trades = Math.min(trades, usesLeft);
+		if (costAmount1 > 0) {
+			trades = Math.min(trades, inputAmount1 / costAmount1);
+		}
+		if (costAmount2 > 0) {
+			trades = Math.min(trades, inputAmount2 / costAmount2);
+		}
+		return Math.max(trades, 0);
+	}
+	
+	/**
+	 * Distribute a cursor evenly over the slots of a drag. Every slot receives the same share of the
+	 * cursor on top of its current amount, and whatever is left over returns to the cursor. A slot that
+	 * can't fit its whole share returns exactly the part that didn't fit.
+	 *
+	 * @param amounts      The current amounts of the dragged slots, replaced by their new amounts
+	 * @param cursorAmount The amount of the cursor
+	 * @param maxAmount    The max amount that the item can stack to
+	 *
+	 * @return The new amount of the cursor
+	 */
+	public static int distribute(int[] amounts, int cursorAmount, int maxAmount) {
+		int amountPerSlot = cursorAmount / amounts.length;
+		int amountLeft    = cursorAmount - amountPerSlot * amounts.length;
+		for (int i = 0; i < amounts.length; ++i) {
+			int added = Math.min(amountPerSlot, Math.max(maxAmount - amounts[i], 0));
+			amountLeft += amountPerSlot - added;
+			amounts[i] += added;
+		}
+		return amountLeft;
+	}
+	
+}
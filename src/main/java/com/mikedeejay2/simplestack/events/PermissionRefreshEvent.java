@@ -0,0 +1,55 @@
+package com.mikedeejay2.simplestack.events;
+
+import org.bukkit.entity.Player;
+import org.bukkit.event.Event;
+import org.bukkit.event.HandlerList;
+
+/**
+ * Event that permission plugins (or any other plugin that changes permissions) can call to make
+ * Simple Stack resolve the <tt>simplestack.use</tt> permission again instead of using its cached
+ * verdict. Call it with a player to refresh that player, or without one to refresh every player.
+ *
+ * @author Mikedeejay2
+ */
+public class PermissionRefreshEvent extends Event {
+	
+	private static final HandlerList handlers = new HandlerList();
+	
+	// The player whose permission changed, null for every player
+	private final Player player;
+	
+	/**
+	 * Refresh the permission of every player
+	 */
+	public PermissionRefreshEvent() {
+		this(null);
+	}
+	
+	/**
+	 * Refresh the permission of one player
+	 *
+	 * @param player The player whose permission changed
+	 */
+	public PermissionRefreshEvent(Player player) {
+		this.player = player;
+	}
+	
+	/**
+	 * Get the player whose permission changed
+	 *
+	 * @return The player, null if the permission of every player should be refreshed
+	 */
+	public Player getPlayer() {
+		return player;
+	}
+	
+	@Override
+	public HandlerList getHandlers() {
+		return handlers;
+	}
+	
+	public static HandlerList getHandlerList() {
+		return handlers;
+	}
+	
+}
@@ -0,0 +1,32 @@
+package com.mikedeejay2.simplestack.listeners;
+
+import com.mikedeejay2.simplestack.SimpleStack;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.world.ChunkLoadEvent;
+
+/**
+ * Listens for Chunk Load events
+ *
+ * @author Mikedeejay2
+ */
+public class ChunkLoadListener implements Listener {
+	
+	private final SimpleStack plugin;
+	
+	public ChunkLoadListener(SimpleStack plugin) {
+		this.plugin = plugin;
+	}
+	
+	/**
+	 * Start tracking the items on the ground of a chunk that has been loaded.
+	 *
+	 * @param event The event being activated
+	 */
+	@EventHandler(priority = EventPriority.MONITOR)
+	public void chunkLoadEvent(ChunkLoadEvent event) {
+		plugin.getGroundItemStacker().trackChunk(event.getChunk());
+	}
+	
+}
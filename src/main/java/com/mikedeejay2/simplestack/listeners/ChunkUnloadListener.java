@@ -0,0 +1,32 @@
+package com.mikedeejay2.simplestack.listeners;
+
+import com.mikedeejay2.simplestack.SimpleStack;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.world.ChunkUnloadEvent;
+
+/**
+ * Listens for Chunk Unload events
+ *
+ * @author Mikedeejay2
+ */
+public class ChunkUnloadListener implements Listener {
+	
+	private final SimpleStack plugin;
+	
+	public ChunkUnloadListener(SimpleStack plugin) {
+		this.plugin = plugin;
+	}
+	
+	/**
+	 * Stop tracking the items on the ground of a chunk that is being unloaded.
+	 *
+	 * @param event The event being activated
+	 */
+	@EventHandler(priority = EventPriority.MONITOR)
+	public void chunkUnloadEvent(ChunkUnloadEvent event) {
+		plugin.getGroundItemStacker().untrackChunk(event.getChunk());
+	}
+	
+}
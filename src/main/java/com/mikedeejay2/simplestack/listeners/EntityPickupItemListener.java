@@ -35,6 +35,7 @@ public class EntityPickupItemListener implements Listener {
 	 */
 	@EventHandler
 	public void entityPickupItemEvent(EntityPickupItemEvent event) {
+		plugin.getGroundItemStacker().markDirty(event.getItem());
 		LivingEntity entity = event.getEntity();
         if (!(entity instanceof InventoryHolder)) {
             return;
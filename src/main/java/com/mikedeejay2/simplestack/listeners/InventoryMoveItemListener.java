@@ -2,19 +2,18 @@ package com.mikedeejay2.simplestack.listeners;
 
 import com.mikedeejay2.simplestack.SimpleStack;
 import com.mikedeejay2.simplestack.util.CancelUtils;
-import com.mikedeejay2.simplestack.util.MoveUtils;
-import com.mikedeejay2.simplestack.util.ShulkerBoxes;
+import com.mikedeejay2.simplestack.util.MaterialTraits;
 import org.bukkit.Location;
 import org.bukkit.Material;
 import org.bukkit.World;
 import org.bukkit.block.Block;
 import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
 import org.bukkit.event.inventory.InventoryMoveItemEvent;
 import org.bukkit.event.inventory.InventoryType;
 import org.bukkit.inventory.Inventory;
 import org.bukkit.inventory.ItemStack;
-import org.bukkit.scheduler.BukkitRunnable;
 
 public class InventoryMoveItemListener implements Listener {
 	
@@ -26,7 +25,7 @@ public class InventoryMoveItemListener implements Listener {
 	
 	/**
 	 * This patches hoppers not properly stacking unstackable items together in
-	 * inventories.
+	 * inventories. The move is queued so that all moves of a tick are done together.
 	 *
 	 * @param event The event being activated
 	 */
@@ -43,12 +42,12 @@ public class InventoryMoveItemListener implements Listener {
         if (invType == InventoryType.BREWING) {
             return;
         }
-		if (toInv.getLocation() != null && ShulkerBoxes.isShulkerBox(item.getType())) {
+		if (toInv.getLocation() != null && MaterialTraits.is(item.getType(), MaterialTraits.SHULKER_BOX)) {
 			Location location  = toInv.getLocation();
 			World    world     = location.getWorld();
 			Block    block     = world.getBlockAt(location);
 			Material blockType = block.getType();
-            if (ShulkerBoxes.isShulkerBox(blockType)) {
+            if (MaterialTraits.is(blockType, MaterialTraits.SHULKER_BOX)) {
                 return;
             }
 		}
@@ -59,15 +58,19 @@ public class InventoryMoveItemListener implements Listener {
         }
 		event.setCancelled(true);
 		
-		int amountBeingMoved = item.getAmount();
-		
-		new BukkitRunnable() {
-			
-			@Override
-			public void run() {
-				MoveUtils.moveItemToInventory(plugin, item, fromInv, toInv, amountBeingMoved);
-			}
-		}.runTask(plugin);
+		plugin.getHopperTransferQueue().enqueue(item, fromInv, toInv, item.getAmount());
+	}
+	
+	/**
+	 * Moves that haven't been cancelled are done by vanilla, so the slot indexes of both
+	 * inventories are outdated afterwards.
+	 *
+	 * @param event The event being activated
+	 */
+	@EventHandler(ignoreCancelled = true, priority = EventPriority.MONITOR)
+	public void inventoryMoveItemMonitor(InventoryMoveItemEvent event) {
+		plugin.getHopperTransferQueue().invalidate(event.getSource());
+		plugin.getHopperTransferQueue().invalidate(event.getDestination());
 	}
 	
 }
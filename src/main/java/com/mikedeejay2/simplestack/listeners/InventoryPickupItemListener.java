@@ -2,12 +2,11 @@ package com.mikedeejay2.simplestack.listeners;
 
 import com.mikedeejay2.simplestack.SimpleStack;
 import com.mikedeejay2.simplestack.util.CancelUtils;
-import com.mikedeejay2.simplestack.util.MoveUtils;
 import org.bukkit.entity.Item;
 import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
 import org.bukkit.event.inventory.InventoryPickupItemEvent;
-import org.bukkit.inventory.Inventory;
 import org.bukkit.inventory.ItemStack;
 
 public class InventoryPickupItemListener implements Listener {
@@ -20,12 +19,14 @@ public class InventoryPickupItemListener implements Listener {
 	
 	/**
 	 * This patches hoppers not properly picking up unstackable items and stacking them together in
-	 * inventories.
+	 * inventories. The pickup is queued and resolved with every other pickup of the inventory
+	 * on the next tick.
 	 *
 	 * @param event The event being activated
 	 */
 	@EventHandler
 	public void inventoryPickupItemEvent(InventoryPickupItemEvent event) {
+		plugin.getGroundItemStacker().markDirty(event.getItem());
         if (!plugin.config().shouldProcessHoppers()) {
             return;
         }
@@ -38,9 +39,19 @@ public class InventoryPickupItemListener implements Listener {
         }
 		event.setCancelled(true);
 		
-		Inventory inv = event.getInventory();
-		
-		MoveUtils.moveItemToInventory(plugin, event, item, inv, stack);
+		plugin.getHopperTransferQueue().enqueuePickup(item, event.getInventory());
+	}
+	
+	/**
+	 * Picking up an item through vanilla modifies the inventory, so the slot index of the
+	 * inventory is outdated afterwards. Cancelled pickups are queued and go through the index
+	 * themselves.
+	 *
+	 * @param event The event being activated
+	 */
+	@EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+	public void inventoryPickupItemMonitor(InventoryPickupItemEvent event) {
+		plugin.getHopperTransferQueue().invalidate(event.getInventory());
 	}
 	
 }
@@ -0,0 +1,32 @@
+package com.mikedeejay2.simplestack.listeners;
+
+import com.mikedeejay2.simplestack.SimpleStack;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.entity.ItemDespawnEvent;
+
+/**
+ * Listens for Item Despawn events
+ *
+ * @author Mikedeejay2
+ */
+public class ItemDespawnListener implements Listener {
+	
+	private final SimpleStack plugin;
+	
+	public ItemDespawnListener(SimpleStack plugin) {
+		this.plugin = plugin;
+	}
+	
+	/**
+	 * Stop tracking items on the ground that have despawned.
+	 *
+	 * @param event The event being activated
+	 */
+	@EventHandler(ignoreCancelled = true, priority = EventPriority.MONITOR)
+	public void itemDespawnEvent(ItemDespawnEvent event) {
+		plugin.getGroundItemStacker().untrack(event.getEntity());
+	}
+	
+}
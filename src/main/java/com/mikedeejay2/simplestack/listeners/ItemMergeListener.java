@@ -23,7 +23,8 @@ public class ItemMergeListener implements Listener {
 	
 	/**
 	 * Patches bug where stackable items that are set to a lower value than regular
-	 * can be merged into a larger number when dropped.
+	 * can be merged into a larger number when dropped. The target item is marked
+	 * dirty so that the ground item stacker checks it again.
 	 *
 	 * @param event The event being activated
 	 */
@@ -35,6 +36,7 @@ public class ItemMergeListener implements Listener {
 		ItemStack resultStack = resultItem.getItemStack();
 		ItemStack targetStack = targetItem.getItemStack();
 		MoveUtils.mergeItems(plugin, resultStack, targetStack);
+		plugin.getGroundItemStacker().markDirty(targetItem);
 	}
 	
 }
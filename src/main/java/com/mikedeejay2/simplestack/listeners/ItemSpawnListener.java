@@ -2,12 +2,12 @@ package com.mikedeejay2.simplestack.listeners;
 
 import com.mikedeejay2.simplestack.SimpleStack;
 import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
 import org.bukkit.event.entity.ItemSpawnEvent;
 
 /**
- * Listens for Item Spawn events. <p>
- * <b>Currently unused</b>
+ * Listens for Item Spawn events
  *
  * @author Mikedeejay2
  */
@@ -20,11 +20,14 @@ public class ItemSpawnListener implements Listener {
 	}
 	
 	/**
+	 * Start tracking newly spawned items so that the ground item stacker
+	 * only has to check items that have changed.
+	 *
 	 * @param event The event being activated
 	 */
-	@EventHandler
+	@EventHandler(ignoreCancelled = true, priority = EventPriority.MONITOR)
 	public void itemSpawnEvent(ItemSpawnEvent event) {
-	
+		plugin.getGroundItemStacker().track(event.getEntity());
 	}
 	
-}
\ No newline at end of file
+}
@@ -2,8 +2,8 @@ package com.mikedeejay2.simplestack.listeners.player;
 
 import com.mikedeejay2.simplestack.SimpleStack;
 import com.mikedeejay2.simplestack.util.CancelUtils;
+import com.mikedeejay2.simplestack.util.MaterialTraits;
 import com.mikedeejay2.simplestack.util.MoveUtils;
-import com.mikedeejay2.simplestack.util.ShulkerBoxes;
 import org.bukkit.block.Block;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
@@ -34,7 +34,7 @@ public class BlockBreakListener implements Listener {
 	public void blockBreakEvent(BlockBreakEvent event) {
 		Player player = event.getPlayer();
 		Block  block  = event.getBlock();
-        if (!ShulkerBoxes.isShulkerBox(block.getType())) {
+        if (!MaterialTraits.is(block.getType(), MaterialTraits.SHULKER_BOX)) {
             return;
         }
         if (CancelUtils.cancelPlayerCheck(plugin, player)) {
@@ -36,7 +36,6 @@ public class InventoryClickListener implements Listener {
 	public void stackEvent(InventoryClickEvent event) {
 		Player          player = (Player)event.getWhoClicked();
 		InventoryAction action = event.getAction();
-		CheckUtils.updateGUIManual(plugin, player.getOpenInventory().getTopInventory());
         if (CancelUtils.cancelPlayerCheck(plugin, player)) {
             return;
         }
@@ -59,13 +58,21 @@ public class InventoryClickListener implements Listener {
 			return;
 		}
 		event.setCancelled(true);
+		plugin.getInventoryUpdateQueue().beginSync(player);
+		ItemStack[] guiInputs = CheckUtils.captureGUIInputs(topInv);
 		
-		CheckUtils.useGUICheck(plugin, player, topInv, slot, clickedInv, clickType);
+		if (!CheckUtils.useGUICheck(plugin, player, topInv, slot, clickedInv, clickType)) {
+			plugin.getInventoryUpdateQueue().requestUpdate(player);
+			plugin.getInventoryUpdateQueue().endSync(player);
+			return;
+		}
 		
 		if (action == InventoryAction.CLONE_STACK) {
 			ClickUtils.cloneStack(plugin, player, itemPickUp);
 		} else if (action == InventoryAction.HOTBAR_SWAP || action == InventoryAction.HOTBAR_MOVE_AND_READD) {
 			event.setCancelled(false);
+			CheckUtils.updateGUIIfChanged(plugin, topInv, guiInputs);
+			plugin.getInventoryUpdateQueue().endSync(player);
 			return;
 		}
 		switch (clickType) {
@@ -80,6 +87,19 @@ public class InventoryClickListener implements Listener {
 				ClickUtils.rightClick(plugin, itemPickUp, itemPutDown, player, event);
 				break;
 		}
+		CheckUtils.updateGUIIfChanged(plugin, topInv, guiInputs);
+		plugin.getInventoryUpdateQueue().endSync(player);
+	}
+	
+	/**
+	 * Clicking modifies the top inventory either through vanilla or through Simple Stack,
+	 * so the hopper slot index of the inventory is outdated afterwards.
+	 *
+	 * @param event The event being activated
+	 */
+	@EventHandler(priority = EventPriority.MONITOR)
+	public void inventoryClickMonitor(InventoryClickEvent event) {
+		plugin.getHopperTransferQueue().invalidate(event.getView().getTopInventory());
 	}
 	
 }
@@ -9,7 +9,6 @@ import org.bukkit.event.Listener;
 import org.bukkit.event.inventory.InventoryCloseEvent;
 import org.bukkit.event.inventory.InventoryType;
 import org.bukkit.inventory.Inventory;
-import org.bukkit.scheduler.BukkitRunnable;
 
 /**
  * Listens for Inventory Close events
@@ -45,14 +44,6 @@ public class InventoryCloseListener implements Listener {
         }
 		Inventory playerInv = player.getInventory();
 		MoveUtils.moveAllItemsToPlayerInv(plugin, inv, player, playerInv);
-		
-		new BukkitRunnable() {
-			
-			@Override
-			public void run() {
-				player.updateInventory();
-			}
-		}.runTask(plugin);
 	}
 	
 }
@@ -67,8 +67,19 @@ public class InventoryDragListener implements Listener {
 			}
 		}
 		
-		player.updateInventory();
+		plugin.getInventoryUpdateQueue().requestUpdate(player);
 		event.setCancelled(true);
 	}
 	
+	/**
+	 * Dragging modifies the top inventory either through vanilla or through Simple Stack,
+	 * so the hopper slot index of the inventory is outdated afterwards.
+	 *
+	 * @param event The event being activated
+	 */
+	@EventHandler(priority = EventPriority.MONITOR)
+	public void inventoryDragMonitor(InventoryDragEvent event) {
+		plugin.getHopperTransferQueue().invalidate(event.getView().getTopInventory());
+	}
+	
 }
@@ -1,7 +1,9 @@
 package com.mikedeejay2.simplestack.listeners.player;
 
 import com.mikedeejay2.simplestack.SimpleStack;
+import com.mikedeejay2.simplestack.runnables.DeferredActionQueue;
 import com.mikedeejay2.simplestack.util.CancelUtils;
+import com.mikedeejay2.simplestack.util.MaterialTraits;
 import com.mikedeejay2.simplestack.util.MoveUtils;
 import org.bukkit.GameMode;
 import org.bukkit.Material;
@@ -11,7 +13,6 @@ import org.bukkit.event.Listener;
 import org.bukkit.event.player.PlayerBucketEmptyEvent;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.inventory.PlayerInventory;
-import org.bukkit.scheduler.BukkitRunnable;
 
 /**
  * Listens for Player Bucket Empty events
@@ -42,7 +43,7 @@ public class PlayerBucketEmptyListener implements Listener {
         }
 		int       slot  = player.getInventory().getHeldItemSlot();
 		ItemStack stack = player.getInventory().getItemInMainHand();
-		if (!stack.getType().toString().endsWith("BUCKET")) {
+		if (!MaterialTraits.is(stack.getType(), MaterialTraits.BUCKET)) {
 			slot = 40;
 			stack = player.getInventory().getItemInOffHand();
 		}
@@ -58,14 +59,10 @@ public class PlayerBucketEmptyListener implements Listener {
 		
 		int       finalSlot  = slot;
 		ItemStack finalStack = stack;
-		new BukkitRunnable() {
-			
-			@Override
-			public void run() {
-				inv.setItem(finalSlot, finalStack);
-				player.updateInventory();
-			}
-		}.runTask(plugin);
+		plugin.getDeferredActionQueue().defer(player, DeferredActionQueue.Kind.RESTORE_HELD_ITEM, () -> {
+			inv.setItem(finalSlot, finalStack);
+			plugin.getInventoryUpdateQueue().requestUpdate(player);
+		});
 	}
 	
 }
@@ -0,0 +1,69 @@
+package com.mikedeejay2.simplestack.listeners.player;
+
+import com.mikedeejay2.simplestack.SimpleStack;
+import com.mikedeejay2.simplestack.events.PermissionRefreshEvent;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerChangedWorldEvent;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+
+/**
+ * Listens for the events that invalidate the cached <tt>simplestack.use</tt> permission of players
+ *
+ * @author Mikedeejay2
+ */
+public class PlayerPermissionListener implements Listener {
+	
+	private final SimpleStack plugin;
+	
+	public PlayerPermissionListener(SimpleStack plugin) {
+		this.plugin = plugin;
+	}
+	
+	/**
+	 * Permissions of a joining player may have changed while they were offline.
+	 *
+	 * @param event The event being activated
+	 */
+	@EventHandler(priority = EventPriority.MONITOR)
+	public void playerJoinEvent(PlayerJoinEvent event) {
+		plugin.getPermissionCache().invalidate(event.getPlayer());
+	}
+	
+	/**
+	 * Forget the permission of a player that left so the cache doesn't grow.
+	 *
+	 * @param event The event being activated
+	 */
+	@EventHandler(priority = EventPriority.MONITOR)
+	public void playerQuitEvent(PlayerQuitEvent event) {
+		plugin.getPermissionCache().invalidate(event.getPlayer());
+	}
+	
+	/**
+	 * Permission plugins can grant permissions per world.
+	 *
+	 * @param event The event being activated
+	 */
+	@EventHandler(priority = EventPriority.MONITOR)
+	public void playerChangedWorldEvent(PlayerChangedWorldEvent event) {
+		plugin.getPermissionCache().invalidate(event.getPlayer());
+	}
+	
+	/**
+	 * Another plugin changed permissions and asked for them to be resolved again.
+	 *
+	 * @param event The event being activated
+	 */
+	@EventHandler(priority = EventPriority.MONITOR)
+	public void permissionRefreshEvent(PermissionRefreshEvent event) {
+		if (event.getPlayer() == null) {
+			plugin.getPermissionCache().invalidateAll();
+		} else {
+			plugin.getPermissionCache().invalidate(event.getPlayer());
+		}
+	}
+	
+}
@@ -0,0 +1,177 @@
+package com.mikedeejay2.simplestack.runnables;
+
+import com.mikedeejay2.simplestack.SimpleStack;
+import org.bukkit.scheduler.BukkitRunnable;
+
+import java.util.*;
+import java.util.logging.Level;
+
+/**
+ * Queue of actions that have to run on the next tick, drained by this single runnable every tick
+ * instead of every event scheduling its own task. <p>
+ * Actions are deferred for a target (a player or an inventory) and a <tt>Kind</tt>. Kinds that only
+ * bring their target up to date coalesce: deferring one for a target that already has one pending
+ * replaces the pending action, so the target is only updated once per tick no matter how many events
+ * asked for it. Other kinds apply one step per event and run once for every time they were deferred.
+ * Actions run in the order that they were first deferred.
+ *
+ * @author Mikedeejay2
+ */
+public class DeferredActionQueue extends BukkitRunnable {
+	
+	/**
+	 * The kinds of deferred actions
+	 */
+	public enum Kind {
+		// Resend the inputs of an anvil or smithing table so its result is recalculated
+		GUI_UPDATE(true),
+		// Reset the grid of a crafting inventory so its recipe is recalculated
+		RECIPE_REFRESH(true),
+		// Set the cursor of a player to what is left of a drag
+		DRAG_CURSOR(true),
+		// Play the pickup sound of an entity that picked up items
+		PICKUP_SOUND(true),
+		// Take the result of a stonecutter
+		STONECUTTER_RESULT(false),
+		// Leave a single potion in a brewing stand slot and move the rest to the cursor
+		BREWING_SLOT(false),
+		// Put a stack back into the hand of a player after vanilla replaced it with its container
+		RESTORE_HELD_ITEM(false),
+		// Give a player the containers that the ingredients of a craft left behind
+		CRAFT_REMAINDERS(false);
+		
+		// Whether actions of this kind replace a pending action of the same target
+		private final boolean coalesce;
+		
+		Kind(boolean coalesce) {
+			this.coalesce = coalesce;
+		}
+	}
+	
+	private final SimpleStack                    plugin;
+	// The actions to run on the next tick in the order that they were deferred
+	private       List<Action>                   pending;
+	// The actions that are being run
+	private       List<Action>                   running;
+	// The pending coalescing actions of every kind by their target
+	private final Map<Kind, Map<Object, Action>> coalescing;
+	// Actions that ran during the last tick
+	private       int                            lastRunCount;
+	// Actions that were replaced by a newer action of the same target during the last tick
+	private       int                            lastCoalescedCount;
+	// Actions replaced since the last run
+	private       int                            coalescedCount;
+	// Time in microseconds used by the last run
+	private       long                           lastRunTime;
+	
+	public DeferredActionQueue(SimpleStack plugin) {
+		this.plugin = plugin;
+		this.pending = new ArrayList<>();
+		this.running = new ArrayList<>();
+		this.coalescing = new EnumMap<>(Kind.class);
+		for (Kind kind : Kind.values()) {
+			if (kind.coalesce) {
+				coalescing.put(kind, new HashMap<>());
+			}
+		}
+	}
+	
+	/**
+	 * Defer an action for a target to the next tick
+	 *
+	 * @param target The player or inventory that the action is for
+	 * @param kind   The kind of the action
+	 * @param action The action to run
+	 */
+	public void defer(Object target, Kind kind, Runnable action) {
+		if (!kind.coalesce) {
+			pending.add(new Action(action));
+			return;
+		}
+		Map<Object, Action> byTarget = coalescing.get(kind);
+		Action              existing = byTarget.get(target);
+		if (existing != null) {
+			existing.runnable = action;
+			++coalescedCount;
+			return;
+		}
+		Action newAction = new Action(action);
+		byTarget.put(target, newAction);
+		pending.add(newAction);
+	}
+	
+	/**
+	 * Run every pending action
+	 */
+	@Override
+	public void run() {
+		if (pending.isEmpty()) {
+			lastRunCount = 0;
+			lastCoalescedCount = coalescedCount;
+			coalescedCount = 0;
+			lastRunTime = 0;
+			return;
+		}
+		long         start   = System.nanoTime();
+		List<Action> actions = pending;
+		pending = running;
+		running = actions;
+		for (Map<Object, Action> byTarget : coalescing.values()) {
+			byTarget.clear();
+		}
+		for (Action action : actions) {
+			try {
+				action.runnable.run();
+			} catch (RuntimeException exception) {
+				plugin.getLogger().log(Level.SEVERE, "A deferred action threw an exception", exception);
+			}
+		}
+		lastRunCount = actions.size();
+		lastCoalescedCount = coalescedCount;
+		coalescedCount = 0;
+		actions.clear();
+		lastRunTime = (System.nanoTime() - start) / 1000L;
+	}
+	
+	/**
+	 * Get the amount of actions that ran during the last tick
+	 *
+	 * @return The amount of actions
+	 */
+	public int getLastRunCount() {
+		return lastRunCount;
+	}
+	
+	/**
+	 * Get the amount of actions that were coalesced into another action during the last tick
+	 *
+	 * @return The amount of coalesced actions
+	 */
+	public int getLastCoalescedCount() {
+		return lastCoalescedCount;
+	}
+	
+	/**
+	 * Get the time in microseconds that running the actions took during the last tick
+	 *
+	 * @return The time used by the last run
+	 */
+	public long getLastRunTime() {
+		return lastRunTime;
+	}
+	
+	/**
+	 * A deferred action, replaced in place when a newer action of the same target coalesces into it
+	 */
+	private static final class Action {
+		
+		// The action to run
+		private Runnable runnable;
+		
+		private Action(Runnable runnable) {
+			this.runnable = runnable;
+		}
+	
+	}
+	
+}
@@ -1,78 +1,665 @@
 package com.mikedeejay2.simplestack.runnables;
 
 import com.mikedeejay2.simplestack.SimpleStack;
+import com.mikedeejay2.simplestack.config.ConfigSnapshot;
+import com.mikedeejay2.simplestack.core.GroundMergePlan;
+import com.mikedeejay2.simplestack.core.GroundMergePlanner;
+import com.mikedeejay2.simplestack.core.GroundSnapshot;
 import com.mikedeejay2.simplestack.util.CancelUtils;
-import com.mikedeejay2.simplestack.util.MoveUtils;
+import com.mikedeejay2.simplestack.util.SpatialItemGrid;
 import com.mikedeejay2.simplestack.util.StackUtils;
 import org.bukkit.Bukkit;
-import org.bukkit.Material;
+import org.bukkit.Chunk;
+import org.bukkit.Location;
 import org.bukkit.World;
 import org.bukkit.entity.Entity;
 import org.bukkit.entity.Item;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.scheduler.BukkitRunnable;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * Custom item stacking runnable for stacking unstackable items when they are on
- * the ground.
+ * the ground. <p>
+ * Stackable items are tracked as they spawn, load or unload instead of being searched for
+ * every run. Tracked items are sorted into a <tt>SpatialItemGrid</tt> per world, and a run
+ * only processes the dirty items that spawned or moved since the last run. Items that are
+ * resting on the ground are not touched until something new drops next to them. <p>
+ * This runnable runs every tick. Dirty items are collected into a pass at most once every
+ * <tt>PASS_INTERVAL</tt> ticks, and every pass goes through three stages:
+ * <ol>
+ *     <li>The dirty items and their neighbours are collected into a <tt>GroundSnapshot</tt> on the main thread</li>
+ *     <li>The merges of the snapshot are planned by the <tt>GroundMergePlanner</tt> on a worker pool</li>
+ *     <li>The plan is applied on the main thread once it is ready, skipping clusters that changed in the meantime</li>
+ * </ol>
+ * The main thread stages are worked through for as long as the tick budget in the config
+ * allows before continuing on the next tick. <p>
+ * Items can be removed without a despawn event (lava, the void, other plugins), so whatever is
+ * left of the budget is used to sweep over the tracked items a few at a time and untrack the ones
+ * that are no longer valid.
  *
  * @author Mikedeejay2
  */
 public class GroundItemStacker extends BukkitRunnable {
 	
-	private final SimpleStack plugin;
+	// The minimum amount of ticks between the start of two passes
+	public static final int PASS_INTERVAL = 20;
+	// The maximum amount of tracked items that are checked for removal every tick
+	public static final int SWEEP_BATCH   = 64;
+	
+	private final SimpleStack                               plugin;
+	// Tracked stackable items on the ground by their unique id
+	private final Map<UUID, TrackedItem>                    tracked;
+	// Tracked items that have spawned or moved since the current pass started
+	private final Set<TrackedItem>                          dirty;
+	// Tracked items of the current pass that haven't been collected yet
+	private final Deque<TrackedItem>                        queue;
+	// Grid of the tracked items for every world by the world's unique id
+	private final Map<UUID, SpatialItemGrid<TrackedItem>>   grids;
+	// Tracked items that haven't been checked for removal in the current sweep
+	private final Deque<TrackedItem>                        sweep;
+	// Nearby items found invalid while collecting, untracked once the grid isn't being iterated
+	private final List<TrackedItem>                         invalid;
+	// Loaded chunks whose items still have to be tracked after the tracked items were dropped
+	private final Deque<Chunk>                              rescan;
+	// Time in microseconds used by the last PASS_INTERVAL ticks
+	private final long[]                                    tickTimes;
+	// The worker pool that merge plans are computed on
+	private final ForkJoinPool                              pool;
+	// The config snapshot that the tracked items were last collected with
+	private       ConfigSnapshot                            trackedConfig;
+	// The amount of ticks since the current pass started
+	private       int                                       passTicks;
+	// The id of the current pass
+	private       int                                       pass;
+	// The amount of ticks that have been run
+	private       long                                      ticks;
+	// The snapshot that is being collected for the current pass
+	private       GroundSnapshot                            snapshot;
+	// The tracked items of the snapshot, in the same order as the snapshot's entries
+	private       List<TrackedItem>                         snapshotItems;
+	// The first item of every similarity class of the snapshot, indexed by class
+	private       List<ItemStack>                           classItems;
+	// The similarity classes of the snapshot by the similarity key of their items
+	private       Map<Long, List<Integer>>                  classesByKey;
+	// The merge plan that is being computed by the worker pool
+	private       CompletableFuture<GroundMergePlan>        planning;
+	// The merge plan that is being applied
+	private       GroundMergePlan                           plan;
+	// The snapshot that the plan being applied was computed from
+	private       GroundSnapshot                            planSnapshot;
+	// The tracked items of the plan's snapshot, indexed by entry index
+	private       TrackedItem[]                             planItems;
+	// The next cluster of the plan to apply
+	private       int                                       planCluster;
 	
 	public GroundItemStacker(SimpleStack plugin) {
 		this.plugin = plugin;
+		this.tracked = new HashMap<>();
+		this.dirty = new LinkedHashSet<>();
+		this.queue = new ArrayDeque<>();
+		this.grids = new HashMap<>();
+		this.sweep = new ArrayDeque<>();
+		this.invalid = new ArrayList<>();
+		this.rescan = new ArrayDeque<>();
+		this.tickTimes = new long[PASS_INTERVAL];
+		this.pool = new ForkJoinPool(Math.max(1, Runtime.getRuntime().availableProcessors() - 1));
 	}
 	
 	@Override
 	public void run() {
-		if (!plugin.config().processGroundItems()) {
-			return;
-		}
-		List<World> worlds = Bukkit.getWorlds();
-		List<Item>  items  = new ArrayList<>();
-		for (World world : worlds) {
-			for (Item item : world.getEntitiesByClass(Item.class)) {
-				ItemStack stack = item.getItemStack();
-				if (CancelUtils.cancelStackCheck(plugin, stack)) {
-					continue;
+		long           start  = System.nanoTime();
+		ConfigSnapshot config = plugin.config().snapshot();
+		++passTicks;
+		if (config.processGroundItems()) {
+			if (config != trackedConfig) {
+				updateConfig(config);
+			}
+			long deadline = start + config.getGroundTickBudget() * 1000L;
+			if (!rescan.isEmpty()) {
+				rescan(deadline);
+			}
+			if (planning != null && planning.isDone()) {
+				finishPlanning();
+			}
+			if (plan != null) {
+				applyPlan(deadline);
+			} else if (planning == null) {
+				if (queue.isEmpty() && passTicks >= PASS_INTERVAL && !dirty.isEmpty()) {
+					startPass();
+				}
+				if (snapshot != null) {
+					collect(config, deadline);
 				}
-				items.add(item);
 			}
+			sweep(deadline);
 		}
-		for (Item item : items) {
-			if (item.isDead() || item.getItemStack().getType() == Material.AIR) {
+		tickTimes[(int)(ticks++ % PASS_INTERVAL)] = (System.nanoTime() - start) / 1000L;
+	}
+	
+	/**
+	 * Start a new pass over the items that are currently dirty
+	 */
+	private void startPass() {
+		queue.addAll(dirty);
+		dirty.clear();
+		passTicks = 0;
+		++pass;
+		snapshot = new GroundSnapshot(queue.size() * 2);
+		snapshotItems = new ArrayList<>(queue.size() * 2);
+		classItems = new ArrayList<>();
+		classesByKey = new HashMap<>();
+	}
+	
+	/**
+	 * Collect the items of the current pass and their neighbours into the snapshot until the pass
+	 * is collected or the deadline has been reached. At least one item is always collected so that
+	 * a pass can never stall. Once the pass has been collected the snapshot is handed to the worker pool.
+	 *
+	 * @param config   The current config snapshot
+	 * @param deadline The <tt>System.nanoTime()</tt> that collecting should stop at
+	 */
+	private void collect(ConfigSnapshot config, long deadline) {
+		double radius = config.getGroundMergeRadius();
+		while (!queue.isEmpty()) {
+			TrackedItem trackedItem = queue.poll();
+			if (tracked.get(trackedItem.item.getUniqueId()) != trackedItem) {
 				continue;
 			}
-			ItemStack stack    = item.getItemStack();
-			Material  material = stack.getType();
-			if (StackUtils.getMaxAmount(plugin, stack) == material.getMaxStackSize()) {
+			if (!refresh(trackedItem)) {
+				untrack(trackedItem);
 				continue;
 			}
-			List<Entity> nearby = item.getNearbyEntities(1, 1, 1);
-			for (Entity entity : nearby) {
-				if (!(entity instanceof Item)) {
-					continue;
-				}
-				Item      newItem  = (Item)entity;
-				ItemStack newStack = newItem.getItemStack();
-				if (!stack.isSimilar(newStack)) {
-					continue;
-				}
-				MoveUtils.mergeItems(plugin, newStack, stack);
-				if (!newStack.getType().isAir()) {
-					newItem.setItemStack(newStack);
-				}
-				if (!stack.getType().isAir()) {
-					item.setItemStack(stack);
-				}
+			if (trackedItem.moved) {
+				dirty.add(trackedItem);
+			}
+			collectNearby(trackedItem, radius);
+			if (System.nanoTime() >= deadline) {
+				return;
+			}
+		}
+		submitPlan(radius);
+	}
+	
+	/**
+	 * Check up to <tt>SWEEP_BATCH</tt> tracked items for removal and untrack the ones that are no
+	 * longer valid. Once every tracked item has been checked the sweep starts over.
+	 *
+	 * @param deadline The <tt>System.nanoTime()</tt> that sweeping should stop at
+	 */
+	private void sweep(long deadline) {
+		if (sweep.isEmpty()) {
+			sweep.addAll(tracked.values());
+		}
+		for (int i = 0; i < SWEEP_BATCH && !sweep.isEmpty() && System.nanoTime() < deadline; ++i) {
+			TrackedItem trackedItem = sweep.poll();
+			if (tracked.get(trackedItem.item.getUniqueId()) == trackedItem && !trackedItem.item.isValid()) {
+				untrack(trackedItem);
+			}
+		}
+	}
+	
+	/**
+	 * Hand the collected snapshot to the worker pool to plan its merges
+	 *
+	 * @param radius The radius in blocks that items can be apart and still stack
+	 */
+	private void submitPlan(double radius) {
+		GroundSnapshot collected = snapshot;
+		if (collected.size() > 1) {
+			planning = CompletableFuture.supplyAsync(() -> GroundMergePlanner.plan(collected, radius), pool);
+			planSnapshot = collected;
+			planItems = snapshotItems.toArray(new TrackedItem[0]);
+		}
+		snapshot = null;
+		snapshotItems = null;
+		classItems = null;
+		classesByKey = null;
+	}
+	
+	/**
+	 * Take the finished merge plan from the worker pool so that it can be applied
+	 */
+	private void finishPlanning() {
+		try {
+			plan = planning.join();
+			planCluster = 0;
+		} catch (CompletionException e) {
+			e.printStackTrace();
+			clearPlan();
+		}
+		planning = null;
+	}
+	
+	/**
+	 * Apply the clusters of the current merge plan until the plan is finished or the deadline has been
+	 * reached. At least one cluster is always applied so that a plan can never stall.
+	 *
+	 * @param deadline The <tt>System.nanoTime()</tt> that applying should stop at
+	 */
+	private void applyPlan(long deadline) {
+		while (planCluster < plan.size()) {
+			applyCluster(planCluster++);
+			if (System.nanoTime() >= deadline) {
+				return;
+			}
+		}
+		clearPlan();
+	}
+	
+	/**
+	 * Apply a single cluster of the current merge plan. Every surviving item is updated once and
+	 * every absorbed item is removed. The cluster is skipped if any of its items are no longer valid
+	 * or no longer match the snapshot that the plan was computed from, since the total amount of
+	 * the cluster could have changed.
+	 *
+	 * @param cluster The index of the cluster to apply
+	 */
+	private void applyCluster(int cluster) {
+		int         start  = plan.getStart(cluster);
+		int         end    = plan.getEnd(cluster);
+		ItemStack[] stacks = new ItemStack[end - start];
+		for (int i = start; i < end; ++i) {
+			int         member      = plan.getMember(i);
+			TrackedItem trackedItem = planItems[member];
+			if (!isUnchanged(trackedItem, member)) {
+				return;
+			}
+			ItemStack stack = trackedItem.item.getItemStack();
+			if (stack.getAmount() != planSnapshot.getAmount(member) || (i != start && !stacks[0].isSimilar(stack))) {
+				return;
+			}
+			stacks[i - start] = stack;
+		}
+		for (int i = start; i < end; ++i) {
+			TrackedItem trackedItem = planItems[plan.getMember(i)];
+			ItemStack   stack       = stacks[i - start];
+			int         amount      = plan.getAmount(i);
+			if (amount == 0) {
+				trackedItem.item.remove();
+				untrack(trackedItem);
+			} else if (amount != stack.getAmount()) {
+				stack.setAmount(amount);
+				trackedItem.item.setItemStack(stack);
+			}
+		}
+	}
+	
+	/**
+	 * Return whether a tracked item of the plan is still tracked, valid and the same entity
+	 * that was put into the snapshot
+	 *
+	 * @param trackedItem The tracked item to check
+	 * @param index       The entry index of the item in the plan's snapshot
+	 *
+	 * @return Whether the item can still be merged
+	 */
+	private boolean isUnchanged(TrackedItem trackedItem, int index) {
+		Item item = trackedItem.item;
+		return tracked.get(item.getUniqueId()) == trackedItem && item.isValid() &&
+				item.getEntityId() == planSnapshot.getEntityId(index);
+	}
+	
+	/**
+	 * Drop the merge plan that is being applied
+	 */
+	private void clearPlan() {
+		plan = null;
+		planSnapshot = null;
+		planItems = null;
+		planCluster = 0;
+	}
+	
+	/**
+	 * Get the amount of items on the ground that are currently tracked
+	 *
+	 * @return The amount of tracked items
+	 */
+	public int getTrackedCount() {
+		return tracked.size();
+	}
+	
+	/**
+	 * Get the amount of items that are waiting to be checked, both in the current pass
+	 * and marked dirty for the next pass.
+	 *
+	 * @return The backlog length
+	 */
+	public int getBacklog() {
+		return queue.size() + dirty.size();
+	}
+	
+	/**
+	 * Get the time in microseconds that the last tick used
+	 *
+	 * @return The time used by the last tick
+	 */
+	public long getLastTickTime() {
+		return ticks == 0 ? 0 : tickTimes[(int)((ticks - 1) % PASS_INTERVAL)];
+	}
+	
+	/**
+	 * Get the average time in microseconds used per tick over the last <tt>PASS_INTERVAL</tt> ticks
+	 *
+	 * @return The average time used per tick
+	 */
+	public long getAverageTickTime() {
+		int  count = (int)Math.min(ticks, PASS_INTERVAL);
+		long total = 0;
+		for (int i = 0; i < count; ++i) {
+			total += tickTimes[i];
+		}
+		return count == 0 ? 0 : total / count;
+	}
+	
+	/**
+	 * Stop the worker pool that merge plans are computed on
+	 */
+	public void shutdown() {
+		pool.shutdownNow();
+	}
+	
+	/**
+	 * Start tracking an item on the ground if it can be stacked. New items are marked dirty.
+	 *
+	 * @param item The item to track
+	 */
+	public void track(Item item) {
+		if (tracked.containsKey(item.getUniqueId())) {
+			return;
+		}
+		ItemStack stack = item.getItemStack();
+		if (CancelUtils.cancelStackCheck(plugin, stack)) {
+			return;
+		}
+		TrackedItem trackedItem = new TrackedItem(item);
+		tracked.put(item.getUniqueId(), trackedItem);
+		dirty.add(trackedItem);
+	}
+	
+	/**
+	 * Stop tracking an item
+	 *
+	 * @param item The item to stop tracking
+	 */
+	public void untrack(Item item) {
+		TrackedItem trackedItem = tracked.get(item.getUniqueId());
+		if (trackedItem == null) {
+			return;
+		}
+		untrack(trackedItem);
+	}
+	
+	/**
+	 * Mark a tracked item dirty so that it is checked in the next run. Items that have been
+	 * removed in the meantime are dropped from tracking in the next run.
+	 *
+	 * @param item The item to mark dirty
+	 */
+	public void markDirty(Item item) {
+		TrackedItem trackedItem = tracked.get(item.getUniqueId());
+		if (trackedItem == null) {
+			return;
+		}
+		dirty.add(trackedItem);
+	}
+	
+	/**
+	 * Start tracking every item in a chunk
+	 *
+	 * @param chunk The chunk to track the items of
+	 */
+	public void trackChunk(Chunk chunk) {
+		for (Entity entity : chunk.getEntities()) {
+			if (!(entity instanceof Item)) {
+				continue;
+			}
+			track((Item)entity);
+		}
+	}
+	
+	/**
+	 * Stop tracking every item in a chunk
+	 *
+	 * @param chunk The chunk to stop tracking the items of
+	 */
+	public void untrackChunk(Chunk chunk) {
+		for (Entity entity : chunk.getEntities()) {
+			if (!(entity instanceof Item)) {
+				continue;
 			}
+			untrack((Item)entity);
 		}
 	}
 	
+	/**
+	 * Switch to a new config snapshot. The tracked items are only dropped and tracked again if the
+	 * cell size or which items can be stacked changed, other changes keep every tracked item.
+	 *
+	 * @param config The new config snapshot
+	 */
+	private void updateConfig(ConfigSnapshot config) {
+		ConfigSnapshot oldConfig = trackedConfig;
+		trackedConfig = config;
+		if (oldConfig != null && oldConfig.hasSameGroundTracking(config)) {
+			return;
+		}
+		retrackAll();
+	}
+	
+	/**
+	 * Drop all tracked items and queue every loaded chunk of every world to be tracked again.
+	 * The chunks are tracked over the next ticks within the tick budget by <tt>rescan</tt>.
+	 * Any pass that is in progress is dropped as well.
+	 */
+	private void retrackAll() {
+		tracked.clear();
+		dirty.clear();
+		queue.clear();
+		grids.clear();
+		sweep.clear();
+		if (planning != null) {
+			planning.cancel(false);
+			planning = null;
+		}
+		snapshot = null;
+		snapshotItems = null;
+		classItems = null;
+		classesByKey = null;
+		clearPlan();
+		rescan.clear();
+		for (World world : Bukkit.getWorlds()) {
+			Collections.addAll(rescan, world.getLoadedChunks());
+		}
+	}
+	
+	/**
+	 * Track the items of the queued chunks until every chunk has been tracked or the deadline has
+	 * been reached. At least one chunk is always tracked so that the rescan can never stall. Chunks
+	 * that were unloaded in the meantime are skipped.
+	 *
+	 * @param deadline The <tt>System.nanoTime()</tt> that rescanning should stop at
+	 */
+	private void rescan(long deadline) {
+		while (!rescan.isEmpty()) {
+			Chunk chunk = rescan.poll();
+			if (chunk.isLoaded()) {
+				trackChunk(chunk);
+			}
+			if (System.nanoTime() >= deadline) {
+				return;
+			}
+		}
+	}
+	
+	/**
+	 * Stop tracking an item and remove it from its grid
+	 *
+	 * @param trackedItem The tracked item to remove
+	 */
+	private void untrack(TrackedItem trackedItem) {
+		tracked.remove(trackedItem.item.getUniqueId());
+		dirty.remove(trackedItem);
+		removeFromGrid(trackedItem);
+	}
+	
+	/**
+	 * Refresh the location and similarity key of a tracked item and move it to its new cell
+	 * in the grid of its world.
+	 *
+	 * @param trackedItem The tracked item to refresh
+	 *
+	 * @return Whether the item is still valid
+	 */
+	private boolean refresh(TrackedItem trackedItem) {
+		Item item = trackedItem.item;
+		if (!item.isValid()) {
+			return false;
+		}
+		ItemStack stack = item.getItemStack();
+		if (stack.getType().isAir()) {
+			return false;
+		}
+		Location location = item.getLocation();
+		long     key      = StackUtils.similarityKey(stack);
+		UUID     world    = location.getWorld().getUID();
+		trackedItem.moved = !trackedItem.inGrid || !item.isOnGround() || location.getX() != trackedItem.x ||
+				location.getY() != trackedItem.y || location.getZ() != trackedItem.z;
+		if (trackedItem.moved || key != trackedItem.similarityKey || !world.equals(trackedItem.world)) {
+			removeFromGrid(trackedItem);
+			trackedItem.similarityKey = key;
+			trackedItem.world = world;
+			trackedItem.x = location.getX();
+			trackedItem.y = location.getY();
+			trackedItem.z = location.getZ();
+			grids.computeIfAbsent(world, uid -> new SpatialItemGrid<>(trackedConfig.getGroundCellSize()))
+					.add(key, trackedItem.x, trackedItem.y, trackedItem.z, trackedItem);
+			trackedItem.inGrid = true;
+		}
+		return true;
+	}
+	
+	/**
+	 * Remove a tracked item from the grid of its world if it has been added to one
+	 *
+	 * @param trackedItem The tracked item to remove
+	 */
+	private void removeFromGrid(TrackedItem trackedItem) {
+		if (!trackedItem.inGrid) {
+			return;
+		}
+		SpatialItemGrid<TrackedItem> grid = grids.get(trackedItem.world);
+		if (grid != null) {
+			grid.remove(trackedItem.similarityKey, trackedItem.x, trackedItem.y, trackedItem.z, trackedItem);
+		}
+		trackedItem.inGrid = false;
+	}
+	
+	/**
+	 * Collect a tracked item and the similar tracked items around it into the snapshot.
+	 * Nearby items that are no longer valid are untracked.
+	 *
+	 * @param trackedItem The tracked item to collect
+	 * @param radius      The radius in blocks that items can be apart and still stack
+	 */
+	private void collectNearby(TrackedItem trackedItem, double radius) {
+		addToSnapshot(trackedItem);
+		SpatialItemGrid<TrackedItem> grid = grids.get(trackedItem.world);
+		grid.forEachNearby(trackedItem.similarityKey, trackedItem.x, trackedItem.y, trackedItem.z, radius, nearby -> {
+			if (Math.abs(nearby.x - trackedItem.x) > radius || Math.abs(nearby.y - trackedItem.y) > radius ||
+					Math.abs(nearby.z - trackedItem.z) > radius) {
+				return;
+			}
+			addToSnapshot(nearby);
+		});
+		for (TrackedItem invalidItem : invalid) {
+			untrack(invalidItem);
+		}
+		invalid.clear();
+	}
+	
+	/**
+	 * Add a tracked item to the snapshot of the current pass. Items that are already in the snapshot
+	 * and items that can't take part in a merge are skipped. Items that are no longer valid are
+	 * remembered so that they can be untracked.
+	 *
+	 * @param trackedItem The tracked item to add
+	 */
+	private void addToSnapshot(TrackedItem trackedItem) {
+		if (trackedItem.pass == pass) {
+			return;
+		}
+		trackedItem.pass = pass;
+		Item item = trackedItem.item;
+		if (!item.isValid()) {
+			invalid.add(trackedItem);
+			return;
+		}
+		ItemStack stack     = item.getItemStack();
+		int       maxAmount = StackUtils.getMaxAmount(plugin, stack);
+		if (stack.getType().isAir() || maxAmount == stack.getType().getMaxStackSize() || stack.getAmount() >= maxAmount) {
+			return;
+		}
+		Location location = item.getLocation();
+		snapshot.add(item.getEntityId(), location.getX(), location.getY(), location.getZ(), getSimilarityClass(stack),
+				stack.getAmount(), maxAmount);
+		snapshotItems.add(trackedItem);
+	}
+	
+	/**
+	 * Get the similarity class of an item in the snapshot of the current pass. Items with the same
+	 * similarity key can still differ in meta that the key doesn't cover (enchantments, potion data),
+	 * so the item is compared with <tt>isSimilar</tt> against the first item of every class of its key,
+	 * and a new class is created if it matches none of them.
+	 *
+	 * @param stack The item to get the class of
+	 *
+	 * @return The similarity class of the item
+	 */
+	private int getSimilarityClass(ItemStack stack) {
+		List<Integer> classes = classesByKey.computeIfAbsent(StackUtils.similarityKey(stack), key -> new ArrayList<>(1));
+		for (int similarityClass : classes) {
+			if (classItems.get(similarityClass).isSimilar(stack)) {
+				return similarityClass;
+			}
+		}
+		int similarityClass = classItems.size();
+		classItems.add(stack);
+		classes.add(similarityClass);
+		return similarityClass;
+	}
+	
+	/**
+	 * An item on the ground that is being tracked, along with the location and similarity key
+	 * that it was last added to the grid with.
+	 */
+	private static final class TrackedItem {
+		
+		// The item entity
+		private final Item    item;
+		// The unique id of the world the item was added to the grid in
+		private       UUID    world;
+		// The similarity key the item was added to the grid with
+		private       long    similarityKey;
+		// The location the item was added to the grid at
+		private       double  x;
+		private       double  y;
+		private       double  z;
+		// Whether the item is currently in a grid
+		private       boolean inGrid;
+		// Whether the item moved since it was last refreshed
+		private       boolean moved;
+		// The id of the last pass that the item was added to a snapshot in
+		private       int     pass;
+		
+		private TrackedItem(Item item) {
+			this.item = item;
+		}
+	
+	}
+	
 }
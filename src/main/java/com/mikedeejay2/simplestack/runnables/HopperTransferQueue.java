@@ -0,0 +1,293 @@
+package com.mikedeejay2.simplestack.runnables;
+
+import com.mikedeejay2.simplestack.SimpleStack;
+import com.mikedeejay2.simplestack.util.MoveUtils;
+import com.mikedeejay2.simplestack.util.SlotIndex;
+import com.mikedeejay2.simplestack.util.StackUtils;
+import org.bukkit.entity.Item;
+import org.bukkit.inventory.DoubleChestInventory;
+import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.ItemStack;
+
+import java.util.*;
+
+/**
+ * Queue of hopper transfers that have been cancelled so that they can be done with custom
+ * stacking instead. Transfers are coalesced by their source, destination and the similarity of
+ * the item being moved, and the whole queue is flushed by a single task on the next tick
+ * instead of scheduling a task for every transfer. <p>
+ * Items that hoppers and hopper minecarts pick up from the ground are queued by the inventory
+ * picking them up and resolved in the same flush, one pass per inventory, and every item entity
+ * that was picked up completely is removed at the end of the flush. Items that didn't fit at all
+ * are left untouched so that vanilla tries to pick them up again. <p>
+ * The queue keeps a <tt>SlotIndex</tt> for every inventory that it moves items between, so that
+ * repeated moves into the same inventory don't have to scan it every time. Indexes are kept by a
+ * key of the inventory that is stable across events (see <tt>key</tt>). Indexes are invalidated
+ * when a click, drag, hopper move or hopper pickup modifies the inventory and dropped once they
+ * haven't been used for <tt>INDEX_LIFETIME</tt> flushes. Changes that aren't seen here (droppers,
+ * other plugins, edits through the bottom inventory of a view) don't need an invalidation, since
+ * the index checks every slot against the live inventory before using it.
+ *
+ * @author Mikedeejay2
+ */
+public class HopperTransferQueue {
+	
+	// The amount of flushes that an index is kept for without being used
+	public static final int INDEX_LIFETIME = 40;
+	
+	private final SimpleStack                 plugin;
+	// The amount of items queued for every transfer
+	private final Map<TransferKey, Integer>   transfers;
+	// The item entities being picked up by every inventory
+	private final Map<Inventory, Set<Item>>   pickups;
+	// The slot indexes of the inventories that transfers have moved items between by inventory key
+	private final Map<Object, CachedIndex>    indexes;
+	// Whether a flush has been scheduled for the queued transfers
+	private       boolean                     scheduled;
+	// The amount of flushes that have been run
+	private       int                         flushes;
+	
+	public HopperTransferQueue(SimpleStack plugin) {
+		this.plugin = plugin;
+		this.transfers = new LinkedHashMap<>();
+		this.pickups = new LinkedHashMap<>();
+		this.indexes = new HashMap<>();
+	}
+	
+	/**
+	 * Queue a transfer of an item from one inventory to another
+	 *
+	 * @param item        The item being moved
+	 * @param source      The inventory that the item is coming from
+	 * @param destination The inventory that the item is moving to
+	 * @param amount      The amount of the item being moved
+	 */
+	public void enqueue(ItemStack item, Inventory source, Inventory destination, int amount) {
+		transfers.merge(new TransferKey(item.clone(), source, destination), amount, Integer::sum);
+		schedule();
+	}
+	
+	/**
+	 * Queue an item entity to be picked up by an inventory. Queueing the same entity for the
+	 * same inventory again before the flush has no effect.
+	 *
+	 * @param item      The item entity being picked up
+	 * @param inventory The inventory picking up the item
+	 */
+	public void enqueuePickup(Item item, Inventory inventory) {
+		pickups.computeIfAbsent(inventory, inv -> new LinkedHashSet<>()).add(item);
+		schedule();
+	}
+	
+	/**
+	 * Schedule a flush on the next tick if one isn't scheduled already
+	 */
+	private void schedule() {
+		if (scheduled) {
+			return;
+		}
+		scheduled = true;
+		plugin.getServer().getScheduler().runTask(plugin, this::flush);
+	}
+	
+	/**
+	 * Run every queued transfer and pickup
+	 */
+	public void flush() {
+		scheduled = false;
+		if (transfers.isEmpty() && pickups.isEmpty()) {
+			return;
+		}
+		++flushes;
+		if (!transfers.isEmpty()) {
+			TransferKey[] keys    = transfers.keySet().toArray(new TransferKey[0]);
+			Integer[]     amounts = transfers.values().toArray(new Integer[0]);
+			transfers.clear();
+			for (int i = 0; i < keys.length; ++i) {
+				TransferKey key = keys[i];
+				MoveUtils.moveItemToInventory(plugin, key.item, getIndex(key.source), getIndex(key.destination), amounts[i]);
+			}
+		}
+		if (!pickups.isEmpty()) {
+			flushPickups();
+		}
+		indexes.values().removeIf(cached -> flushes - cached.lastUsed > INDEX_LIFETIME);
+	}
+	
+	/**
+	 * Add every queued item entity to the inventory picking it up through the slot index of the
+	 * inventory. Entities that were picked up completely are removed together afterwards, entities
+	 * that were picked up partially keep what didn't fit. An entity can be queued by more than one
+	 * inventory (an item between two hoppers, a hopper minecart above a hopper), so entities that were
+	 * already picked up completely are skipped and every inventory reads what is left of the entity.
+	 */
+	private void flushPickups() {
+		Set<Item> pickedUp = new LinkedHashSet<>();
+		for (Map.Entry<Inventory, Set<Item>> entry : pickups.entrySet()) {
+			SlotIndex index = getIndex(entry.getKey());
+			for (Item item : entry.getValue()) {
+				if (!item.isValid() || pickedUp.contains(item)) {
+					continue;
+				}
+				ItemStack stack  = item.getItemStack();
+				int       amount = stack.getAmount();
+				int       added  = index.add(stack, amount);
+				if (added == amount) {
+					pickedUp.add(item);
+				} else if (added > 0) {
+					stack.setAmount(amount - added);
+					item.setItemStack(stack);
+				}
+			}
+		}
+		pickups.clear();
+		for (Item item : pickedUp) {
+			item.remove();
+		}
+	}
+	
+	/**
+	 * Invalidate the slot index of an inventory because something else has modified it
+	 *
+	 * @param inventory The inventory that was modified
+	 */
+	public void invalidate(Inventory inventory) {
+		CachedIndex cached = indexes.get(key(inventory));
+		if (cached == null) {
+			return;
+		}
+		cached.index.invalidate();
+	}
+	
+	/**
+	 * Get the slot index of an inventory, creating it if it doesn't exist
+	 *
+	 * @param inventory The inventory to get the index of
+	 *
+	 * @return The slot index
+	 */
+	private SlotIndex getIndex(Inventory inventory) {
+		CachedIndex cached = indexes.computeIfAbsent(key(inventory), key -> new CachedIndex(new SlotIndex(plugin, inventory)));
+		cached.lastUsed = flushes;
+		return cached.index;
+	}
+	
+	/**
+	 * Get a key of an inventory that stays the same for every event. CraftBukkit creates a new
+	 * inventory for a double chest every time that one is used, and those inventories are only equal
+	 * to themselves, so double chests are keyed by their two sides, which wrap the tile entities of the
+	 * chests. Every other inventory is its own key.
+	 *
+	 * @param inventory The inventory to get the key of
+	 *
+	 * @return The key of the inventory
+	 */
+	private static Object key(Inventory inventory) {
+		if (inventory instanceof DoubleChestInventory) {
+			DoubleChestInventory doubleChest = (DoubleChestInventory)inventory;
+			return new DoubleChestKey(doubleChest.getLeftSide(), doubleChest.getRightSide());
+		}
+		return inventory;
+	}
+	
+	/**
+	 * The key of a double chest, equal for every inventory of the same two chests
+	 */
+	private static final class DoubleChestKey {
+		
+		// The inventory of the left chest
+		private final Inventory left;
+		// The inventory of the right chest
+		private final Inventory right;
+		
+		private DoubleChestKey(Inventory left, Inventory right) {
+			this.left = left;
+			this.right = right;
+		}
+		
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (!(obj instanceof DoubleChestKey)) {
+				return false;
+			}
+			DoubleChestKey other = (DoubleChestKey)obj;
+			return left.equals(other.left) && right.equals(other.right);
+		}
+		
+		@Override
+		public int hashCode() {
+			return 31 * left.hashCode() + right.hashCode();
+		}
+	
+	}
+	
+	/**
+	 * A cached slot index along with the flush that it was last used in
+	 */
+	private static final class CachedIndex {
+		
+		// The slot index
+		private final SlotIndex index;
+		// The flush that the index was last used in
+		private       int       lastUsed;
+		
+		private CachedIndex(SlotIndex index) {
+			this.index = index;
+		}
+	
+	}
+	
+	/**
+	 * The source, destination and item of a queued transfer. Two keys are equal when they move between
+	 * inventories with the same inventory keys (see <tt>key</tt>) and their items are similar.
+	 */
+	private static final class TransferKey {
+		
+		// The item being moved
+		private final ItemStack item;
+		// The inventory that the item is coming from
+		private final Inventory source;
+		// The inventory that the item is moving to
+		private final Inventory destination;
+		// The inventory keys of the source and destination
+		private final Object    sourceKey;
+		private final Object    destinationKey;
+		// The similarity key of the item
+		private final long      similarityKey;
+		
+		private TransferKey(ItemStack item, Inventory source, Inventory destination) {
+			this.item = item;
+			this.source = source;
+			this.destination = destination;
+			this.sourceKey = key(source);
+			this.destinationKey = key(destination);
+			this.similarityKey = StackUtils.similarityKey(item);
+		}
+		
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (!(obj instanceof TransferKey)) {
+				return false;
+			}
+			TransferKey other = (TransferKey)obj;
+			return similarityKey == other.similarityKey && sourceKey.equals(other.sourceKey) &&
+					destinationKey.equals(other.destinationKey) && item.isSimilar(other.item);
+		}
+		
+		@Override
+		public int hashCode() {
+			int hash = Long.hashCode(similarityKey);
+			hash = 31 * hash + sourceKey.hashCode();
+			hash = 31 * hash + destinationKey.hashCode();
+			return hash;
+		}
+	
+	}
+	
+}
@@ -0,0 +1,126 @@
+package com.mikedeejay2.simplestack.runnables;
+
+import com.mikedeejay2.simplestack.SimpleStack;
+import com.mikedeejay2.simplestack.config.SyncMode;
+import com.mikedeejay2.simplestack.util.ViewSnapshot;
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.InventoryView;
+
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Queue of players whose inventory has to be resent to their client. Every call to
+ * <tt>Player.updateInventory()</tt> resends the whole open window, so instead of updating
+ * right away players are marked dirty and every dirty player is updated once by a single
+ * task on the next tick, no matter how many times an update was requested. <p>
+ * When the config's <tt>SyncMode</tt> is <tt>DIFF</tt>, a <tt>ViewSnapshot</tt> is taken before a click
+ * is emulated. On flush, the snapshot is diffed against the view. The changed slots are left to the
+ * server's regular per-slot updates, and the cursor is sent on its own if it changed. Spigot can't
+ * send a single slot to a client directly, so the whole window is still resent if the view changed
+ * or if more than half of its slots changed, where a single window packet is smaller.
+ *
+ * @author Mikedeejay2
+ */
+public class InventoryUpdateQueue {
+	
+	private final SimpleStack plugin;
+	// The players whose inventory has to be resent
+	private final Set<Player>               dirty;
+	// The view of every player before their first emulated click since the last flush
+	private final Map<Player, ViewSnapshot> snapshots;
+	// Whether a flush has been scheduled for the dirty players
+	private       boolean                   scheduled;
+	
+	public InventoryUpdateQueue(SimpleStack plugin) {
+		this.plugin = plugin;
+		this.dirty = new LinkedHashSet<>();
+		this.snapshots = new HashMap<>();
+	}
+	
+	/**
+	 * Take a snapshot of a player's open view before a click is emulated, so that only the changes
+	 * can be sent afterwards. Does nothing unless the config's <tt>SyncMode</tt> is <tt>DIFF</tt>.
+	 * Every call has to be followed by <tt>endSync</tt> once the click has been emulated.
+	 *
+	 * @param player The player that is about to click
+	 */
+	public void beginSync(Player player) {
+		if (plugin.config().snapshot().getSyncMode() != SyncMode.DIFF) {
+			return;
+		}
+		snapshots.computeIfAbsent(player, p -> new ViewSnapshot(p.getOpenInventory()));
+	}
+	
+	/**
+	 * Finish the sync of an emulated click. If the click didn't request an update the snapshot is
+	 * discarded, otherwise it would be diffed against the state of a later click.
+	 *
+	 * @param player The player that clicked
+	 */
+	public void endSync(Player player) {
+		if (dirty.contains(player)) {
+			return;
+		}
+		snapshots.remove(player);
+	}
+	
+	/**
+	 * Request the inventory of a player to be resent on the next tick
+	 *
+	 * @param player The player to update the inventory of
+	 */
+	public void requestUpdate(Player player) {
+		dirty.add(player);
+		if (scheduled) {
+			return;
+		}
+		scheduled = true;
+		plugin.getServer().getScheduler().runTask(plugin, this::flush);
+	}
+	
+	/**
+	 * Resend the inventory of every dirty player
+	 */
+	public void flush() {
+		scheduled = false;
+		if (dirty.isEmpty()) {
+			snapshots.clear();
+			return;
+		}
+		Player[] players = dirty.toArray(new Player[0]);
+		dirty.clear();
+		for (Player player : players) {
+			if (!player.isOnline()) {
+				continue;
+			}
+			ViewSnapshot snapshot = snapshots.get(player);
+			if (snapshot == null || !syncChanges(player, snapshot)) {
+				player.updateInventory();
+			}
+		}
+		snapshots.clear();
+	}
+	
+	/**
+	 * Sync only the changes of a player's open view since a snapshot was taken
+	 *
+	 * @param player   The player to sync
+	 * @param snapshot The snapshot taken before the click
+	 *
+	 * @return Whether the changes were synced, false if the whole window has to be resent instead
+	 */
+	private boolean syncChanges(Player player, ViewSnapshot snapshot) {
+		InventoryView view = player.getOpenInventory();
+		if (!snapshot.matches(view) || snapshot.countChangedSlots(view) * 2 > view.countSlots()) {
+			return false;
+		}
+		if (snapshot.isCursorChanged(view)) {
+			player.setItemOnCursor(view.getCursor());
+		}
+		return true;
+	}
+	
+}
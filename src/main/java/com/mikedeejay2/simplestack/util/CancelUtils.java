@@ -1,7 +1,7 @@
 package com.mikedeejay2.simplestack.util;
 
 import com.mikedeejay2.simplestack.SimpleStack;
-import com.mikedeejay2.simplestack.config.Config;
+import com.mikedeejay2.simplestack.config.ConfigSnapshot;
 import com.mikedeejay2.simplestack.config.ListMode;
 import org.bukkit.Location;
 import org.bukkit.Material;
@@ -20,22 +20,27 @@ public final class CancelUtils {
 	/**
 	 * Will check to make sure that item being stacked is not blacklisted or not whitelisted
 	 * or is not null or max stack size is 64 or is of the air item.
+	 * The verdict of most materials is pre-compiled in the config snapshot, the full check
+	 * only runs for materials that have unique items.
 	 *
 	 * @param item Item to check
 	 *
 	 * @return If stack event should be cancelled
 	 */
 	public static boolean cancelStackCheck(SimpleStack plugin, ItemStack item) {
-		Config   config   = plugin.config();
-		Material material = item.getType();
-		if (material == Material.AIR) {
-			return true;
+		ConfigSnapshot config   = plugin.config().snapshot();
+		Material       material = item.getType();
+		switch (config.getStackVerdict(material)) {
+			case CANCEL:
+				return true;
+			case STACK:
+				return false;
 		}
-		int stackAmount = StackUtils.getMaxAmount(plugin, item);
-		if (material.getMaxStackSize() == plugin.config().getMaxAmount() && stackAmount == plugin.config().getMaxAmount()) {
+		int stackAmount = config.getAmount(item);
+		if (material.getMaxStackSize() == config.getMaxAmount() && stackAmount == config.getMaxAmount()) {
 			return true;
 		}
-		if (plugin.config().getListMode() == ListMode.BLACKLIST) {
+		if (config.getListMode() == ListMode.BLACKLIST) {
 			if (config.containsMaterial(material)) {
 				return true;
 			}
@@ -57,7 +62,7 @@ public final class CancelUtils {
 	 * @return If the event for the player should be cancelled because they don't have the permission
 	 */
 	public static boolean cancelPlayerCheck(SimpleStack plugin, Player player) {
-		return !player.hasPermission(plugin.getPermission());
+		return !plugin.getPermissionCache().hasPermission(player);
 	}
 	
 	/**
@@ -75,27 +80,26 @@ public final class CancelUtils {
 		if (item == null || item.getType() == Material.AIR) {
 			return false;
 		}
-		Material type       = item.getType();
-		String   typeString = type.toString();
+		Material type = item.getType();
 		if ((inv instanceof PlayerInventory && slot >= 36 && slot <= 39)) {
 			switch (slot) {
 				case 36: // Boots
-					if (!typeString.endsWith("_BOOTS")) {
+					if (!MaterialTraits.is(type, MaterialTraits.BOOTS)) {
 						return true;
 					}
 					break;
 				case 37: // Leggings
-					if (!typeString.endsWith("_LEGGINGS")) {
+					if (!MaterialTraits.is(type, MaterialTraits.LEGGINGS)) {
 						return true;
 					}
 					break;
 				case 38: // Chestplate
-					if (!typeString.endsWith("_CHESTPLATE") && type != Material.ELYTRA) {
+					if (!MaterialTraits.is(type, MaterialTraits.CHESTPLATE)) {
 						return true;
 					}
 					break;
 				case 39: // Helmet
-					if (!typeString.endsWith("HELMET")) {
+					if (!MaterialTraits.is(type, MaterialTraits.HELMET)) {
 						return true;
 					}
 					break;
@@ -104,7 +108,7 @@ public final class CancelUtils {
 		if (inv instanceof AbstractHorseInventory && slot == 0 && type != Material.SADDLE) {
 			return true;
 		}
-		if (inv instanceof HorseInventory && slot == 1 && !typeString.endsWith("HORSE_ARMOR")) {
+		if (inv instanceof HorseInventory && slot == 1 && !MaterialTraits.is(type, MaterialTraits.HORSE_ARMOR)) {
 			return true;
 		}
 		if (inv instanceof CraftingInventory && slot == 0) {
@@ -117,13 +121,13 @@ public final class CancelUtils {
 			return true;
 		}
 		if (inv instanceof LoomInventory) {
-			if (slot == 0 && !typeString.endsWith("BANNER")) {
+			if (slot == 0 && !MaterialTraits.is(type, MaterialTraits.BANNER)) {
 				return true;
 			}
-			if (slot == 1 && !typeString.endsWith("DYE")) {
+			if (slot == 1 && !MaterialTraits.is(type, MaterialTraits.DYE)) {
 				return true;
 			}
-			if (slot == 2 && !typeString.endsWith("PATTERN")) {
+			if (slot == 2 && !MaterialTraits.is(type, MaterialTraits.PATTERN)) {
 				return true;
 			}
 		}
@@ -137,7 +141,7 @@ public final class CancelUtils {
 			return true;
 		}
 		if (inv instanceof BrewerInventory) {
-			if (slot <= 2 && !(typeString.endsWith("BOTTLE") || typeString.endsWith("POTION"))) {
+			if (slot <= 2 && !MaterialTraits.is(type, MaterialTraits.POTION)) {
 				return true;
 			}
 			if (slot == 4 && type != Material.BLAZE_POWDER) {
@@ -161,12 +165,12 @@ public final class CancelUtils {
 		if (inv instanceof SmithingInventory) {
 			return false;
 		}
-		if (ShulkerBoxes.isShulkerBox(cursorItem.getType()) && inv.getLocation() != null) {
+		if (MaterialTraits.is(cursorItem.getType(), MaterialTraits.SHULKER_BOX) && inv.getLocation() != null) {
 			Location location  = inv.getLocation();
 			World    world     = location.getWorld();
 			Block    block     = world.getBlockAt(location);
 			Material blockType = block.getType();
-			if (ShulkerBoxes.isShulkerBox(blockType)) {
+			if (MaterialTraits.is(blockType, MaterialTraits.SHULKER_BOX)) {
 				return true;
 			}
 		}
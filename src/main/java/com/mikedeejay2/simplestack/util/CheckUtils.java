@@ -1,14 +1,16 @@
 package com.mikedeejay2.simplestack.util;
 
 import com.mikedeejay2.simplestack.SimpleStack;
+import com.mikedeejay2.simplestack.core.StackAlgorithms;
+import com.mikedeejay2.simplestack.runnables.DeferredActionQueue;
 import org.bukkit.Material;
 import org.bukkit.Sound;
 import org.bukkit.entity.Player;
 import org.bukkit.event.inventory.ClickType;
 import org.bukkit.inventory.*;
-import org.bukkit.scheduler.BukkitRunnable;
 
 import java.util.List;
+import java.util.Objects;
 
 /**
  * Utilities for checking whether an item should be moved or not.
@@ -64,12 +66,14 @@ public final class CheckUtils {
 	 * @param slot             The slot that the player has clicked
 	 * @param clickedInventory The inventory that the player has clicked
 	 * @param shiftClick       Mark if the click was a shift click or not
+	 *
+	 * @return Whether the click can continue, false if the result can't be taken
 	 */
-	public static void useCraftingTableCheck(SimpleStack plugin, Player player, Inventory topInv, int slot, Inventory clickedInventory, boolean shiftClick) {
+	public static boolean useCraftingTableCheck(SimpleStack plugin, Player player, Inventory topInv, int slot, Inventory clickedInventory, boolean shiftClick) {
 		if (!(clickedInventory instanceof CraftingInventory && slot == 0)) {
-			return;
+			return true;
 		}
-		triggerCraftingTableUse(plugin, player, topInv, shiftClick);
+		return triggerCraftingTableUse(plugin, player, topInv, shiftClick);
 	}
 	
 	/**
@@ -110,38 +114,25 @@ public final class CheckUtils {
 		ItemStack         inItem2     = topInv.getItem(1);
 		ItemStack         ingredient2 = ingredients.size() >= 2 ? ingredients.get(1) : null;
 		ItemStack         result      = topInv.getItem(2);
+		int               cost1       = inItem1 != null && ingredient1 != null ? ingredient1.getAmount() : 0;
+		int               cost2       = inItem2 != null && ingredient2 != null ? ingredient2.getAmount() : 0;
 		
-		if (!shiftClick) {
-			if (inItem1 != null && ingredient1 != null) {
-				inItem1.setAmount(inItem1.getAmount() - ingredient1.getAmount());
-			}
-			if (inItem2 != null && ingredient2 != null) {
-				inItem2.setAmount(inItem2.getAmount() - ingredient2.getAmount());
-			}
-			++curUses;
-		} else {
+		int trades = 1;
+		if (shiftClick) {
 			int resultAmount = result.getAmount();
-			for (int i = 0; i < plugin.config().getMaxAmount(); i++) {
-				if (result.getAmount() + resultAmount > plugin.config().getMaxAmount() + 1 || curUses >= maxUses) {
-					break;
-				}
-				if (inItem1 != null && ingredient1 != null) {
-					if (inItem1.getAmount() - ingredient1.getAmount() < 0) {
-						break;
-					}
-					inItem1.setAmount(inItem1.getAmount() - ingredient1.getAmount());
-				}
-				if (inItem2 != null && ingredient2 != null) {
-					if (inItem2.getAmount() - ingredient2.getAmount() < 0) {
-						break;
-					}
-					inItem2.setAmount(inItem2.getAmount() - ingredient2.getAmount());
-				}
-				result.setAmount(result.getAmount() + resultAmount);
-				++curUses;
-			}
-			result.setAmount(result.getAmount() - 1);
+			trades = StackAlgorithms.tradeCount(
+					cost1 > 0 ? inItem1.getAmount() : 0, cost1,
+					cost2 > 0 ? inItem2.getAmount() : 0, cost2,
+					maxUses - curUses, resultAmount, plugin.config().getMaxAmount());
+			result.setAmount(resultAmount * (trades + 1) - 1);
+		}
+		if (cost1 > 0) {
+			inItem1.setAmount(inItem1.getAmount() - cost1 * trades);
 		}
+		if (cost2 > 0) {
+			inItem2.setAmount(inItem2.getAmount() - cost2 * trades);
+		}
+		recipe.setUses(curUses + trades);
 	}
 	
 	/**
@@ -153,51 +144,18 @@ public final class CheckUtils {
 	 * @param player     Player triggering crafting table use
 	 * @param topInv     The top inventory (The crafting table inventory)
 	 * @param shiftClick If this click is a shift click
+	 *
+	 * @return Whether the result was taken, false if nothing was crafted and the result has to stay in place
 	 */
-	private static void triggerCraftingTableUse(SimpleStack plugin, Player player, Inventory topInv, boolean shiftClick) {
-		int       GUISize      = topInv.getSize();
+	private static boolean triggerCraftingTableUse(SimpleStack plugin, Player player, Inventory topInv, boolean shiftClick) {
 		ItemStack resultItem   = topInv.getItem(0);
 		ItemStack itemInCursor = player.getItemOnCursor();
 		if (resultItem == null) {
-			return;
+			return true;
 		}
 		resultItem = resultItem.clone();
-		int amountToRemove = 0;
-		if (shiftClick) {
-			int     smallestAmount = Integer.MAX_VALUE;
-			boolean flag           = false;
-			for (int i = 1; i < GUISize; i++) {
-				ItemStack stack = topInv.getItem(i);
-				if (stack == null) {
-					continue;
-				}
-				if (stack.getAmount() < smallestAmount) {
-					flag = true;
-					smallestAmount = stack.getAmount();
-				}
-			}
-			if (flag) {
-				ItemStack moveItem = resultItem.clone();
-				moveItem.setAmount(smallestAmount - 1);
-				MoveUtils.moveItem(plugin, moveItem, topInv, 0, player.getInventory(), 0, 36, false);
-			}
-			amountToRemove = smallestAmount;
-		} else {
-			amountToRemove = 1;
-		}
-		for (int i = 1; i < GUISize; i++) {
-			ItemStack stack = topInv.getItem(i);
-			if (stack == null) {
-				continue;
-			}
-			if (stack.getType().toString().endsWith("BUCKET")) {
-				ItemStack newStack = stack.clone();
-				newStack.setType(Material.BUCKET);
-				newStack.setAmount(amountToRemove);
-				MoveUtils.moveItemPlayerOrder(plugin, newStack, topInv, i, player.getInventory());
-			}
-			int newAmount = stack.getAmount() - amountToRemove;
-			stack.setAmount(newAmount);
+		if (CraftingUtils.craft(plugin, player, topInv, resultItem, shiftClick) == 0) {
+			return false;
 		}
 		
 		if (itemInCursor.isSimilar(resultItem)) {
@@ -214,20 +172,8 @@ public final class CheckUtils {
 			player.setItemOnCursor(newItem);
 		}
 		
-		new BukkitRunnable() {
-			
-			@Override
-			public void run() {
-				
-				ItemStack tempItem = topInv.getItem(1);
-				if (tempItem == null) {
-					tempItem = new ItemStack(Material.AIR);
-				}
-				tempItem = tempItem.clone();
-				topInv.setItem(1, null);
-				topInv.setItem(1, tempItem);
-			}
-		}.runTask(plugin);
+		CraftingUtils.refreshRecipe(plugin, topInv);
+		return true;
 	}
 	
 	/**
@@ -239,43 +185,39 @@ public final class CheckUtils {
 	 * @param shiftClick Mark if the click was a shift click or not
 	 */
 	private static void triggerStonecutterUse(SimpleStack plugin, Player player, Inventory topInv, boolean shiftClick) {
-		new BukkitRunnable() {
-			
-			@Override
-			public void run() {
-				ItemStack itemInput  = topInv.getItem(0);
-				ItemStack itemCursor = player.getItemOnCursor();
-				ItemStack itemOutput = topInv.getItem(1);
-				if (itemInput == null) {
-					return;
-				}
-				if (shiftClick) {
-					if (itemOutput == null) {
-						itemOutput = itemCursor.clone();
-					}
-					itemOutput.setAmount(itemInput.getAmount());
-					itemInput.setAmount(0);
-				} else if (itemOutput == null) {
+		plugin.getDeferredActionQueue().defer(player, DeferredActionQueue.Kind.STONECUTTER_RESULT, () -> {
+			ItemStack itemInput  = topInv.getItem(0);
+			ItemStack itemCursor = player.getItemOnCursor();
+			ItemStack itemOutput = topInv.getItem(1);
+			if (itemInput == null) {
+				return;
+			}
+			if (shiftClick) {
+				if (itemOutput == null) {
 					itemOutput = itemCursor.clone();
-					itemInput.setAmount(itemInput.getAmount() - 1);
-					itemOutput.setAmount(1);
-					itemCursor.setAmount(1);
-				} else {
-					itemInput.setAmount(itemInput.getAmount() - 1);
-					itemCursor.setAmount(itemCursor.getAmount() + 1);
-					itemOutput.setAmount(1);
 				}
-				player.setItemOnCursor(itemCursor);
-				topInv.setItem(0, null);
+				itemOutput.setAmount(itemInput.getAmount());
+				itemInput.setAmount(0);
+			} else if (itemOutput == null) {
+				itemOutput = itemCursor.clone();
+				itemInput.setAmount(itemInput.getAmount() - 1);
+				itemOutput.setAmount(1);
+				itemCursor.setAmount(1);
+			} else {
+				itemInput.setAmount(itemInput.getAmount() - 1);
+				itemCursor.setAmount(itemCursor.getAmount() + 1);
+				itemOutput.setAmount(1);
+			}
+			player.setItemOnCursor(itemCursor);
+			topInv.setItem(0, null);
+			topInv.setItem(1, null);
+			topInv.setItem(0, itemInput);
+			topInv.setItem(1, itemOutput);
+			if (itemInput.getAmount() == 0) {
 				topInv.setItem(1, null);
-				topInv.setItem(0, itemInput);
-				topInv.setItem(1, itemOutput);
-				if (itemInput.getAmount() == 0) {
-					topInv.setItem(1, null);
-				}
-				player.getWorld().playSound(player.getLocation(), Sound.UI_STONECUTTER_TAKE_RESULT, 1, 1);
 			}
-		}.runTask(plugin);
+			player.getWorld().playSound(player.getLocation(), Sound.UI_STONECUTTER_TAKE_RESULT, 1, 1);
+		});
 	}
 	
 	/**
@@ -328,26 +270,52 @@ public final class CheckUtils {
 	}
 	
 	/**
-	 * Manually update the contents of an anvil, smithing table, or stonecutter. There is a chance that a player
+	 * Capture the input slots of an anvil or smithing table before a click is emulated, so that
+	 * <tt>updateGUIIfChanged</tt> can tell whether the click changed them.
+	 *
+	 * @param topInv Player's top inventory
+	 *
+	 * @return Copies of the input items, null if the inventory isn't an anvil or smithing table
+	 */
+	public static ItemStack[] captureGUIInputs(Inventory topInv) {
+		if (!(topInv instanceof AnvilInventory) && !(topInv instanceof SmithingInventory)) {
+			return null;
+		}
+		ItemStack item1 = topInv.getItem(0);
+		ItemStack item2 = topInv.getItem(1);
+		return new ItemStack[] {item1 == null ? null : item1.clone(), item2 == null ? null : item2.clone()};
+	}
+	
+	/**
+	 * Mark an anvil or smithing table for a manual update if an emulated click changed its input slots.
+	 * Inventories that were never captured (every other inventory) are never updated.
+	 *
+	 * @param topInv Player's top inventory
+	 * @param inputs The input items captured by <tt>captureGUIInputs</tt> before the click
+	 */
+	public static void updateGUIIfChanged(SimpleStack plugin, Inventory topInv, ItemStack[] inputs) {
+		if (inputs == null) {
+			return;
+		}
+		if (Objects.equals(inputs[0], topInv.getItem(0)) && Objects.equals(inputs[1], topInv.getItem(1))) {
+			return;
+		}
+		updateGUIManual(plugin, topInv);
+	}
+	
+	/**
+	 * Manually update the contents of an anvil or smithing table on the next tick. There is a chance that a player
 	 * added an item to the GUI or took an item out of the GUI, that is checked with
 	 * this method. If this method is not called, incorrect values will be displayed to the player and
-	 * duping could occur.
+	 * duping could occur. The update runs at most once per tick for every inventory.
 	 *
 	 * @param topInv Player's top inventory that will be updated
 	 */
 	public static void updateGUIManual(SimpleStack plugin, Inventory topInv) {
-		new BukkitRunnable() {
-			
-			@Override
-			public void run() {
-				if (topInv instanceof AnvilInventory) {
-					triggerAnvilSmithingUpdate(topInv);
-				}
-				if (topInv instanceof SmithingInventory) {
-					triggerAnvilSmithingUpdate(topInv);
-				}
-			}
-		}.runTask(plugin);
+		if (!(topInv instanceof AnvilInventory) && !(topInv instanceof SmithingInventory)) {
+			return;
+		}
+		plugin.getDeferredActionQueue().defer(topInv, DeferredActionQueue.Kind.GUI_UPDATE, () -> triggerAnvilSmithingUpdate(topInv));
 	}
 	
 	/**
@@ -374,17 +342,22 @@ public final class CheckUtils {
 	 * @param slot             The clicked slot
 	 * @param clickedInventory The clicked Inventory
 	 * @param clickType        The clicktype for calculations
+	 *
+	 * @return Whether the click can continue, false if the GUI didn't produce its result and nothing should be moved
 	 */
-	public static void useGUICheck(SimpleStack plugin, Player player, Inventory topInv, int slot, Inventory clickedInventory, ClickType clickType) {
+	public static boolean useGUICheck(SimpleStack plugin, Player player, Inventory topInv, int slot, Inventory clickedInventory, ClickType clickType) {
 		boolean shiftClick = clickType == ClickType.SHIFT_LEFT || clickType == ClickType.SHIFT_RIGHT;
 		boolean rightClick = clickType == ClickType.RIGHT;
 		useAnvilCheck(player, topInv, slot, clickedInventory, rightClick);
 		useSmithingCheck(plugin, player, topInv, slot, clickedInventory, rightClick);
 		useStonecutterCheck(plugin, player, topInv, slot, clickedInventory, shiftClick);
-		useCraftingTableCheck(plugin, player, topInv, slot, clickedInventory, shiftClick);
+		if (!useCraftingTableCheck(plugin, player, topInv, slot, clickedInventory, shiftClick)) {
+			return false;
+		}
 		useVillagerCheck(plugin, player, topInv, slot, clickedInventory, shiftClick);
 		useGrindstoneCheck(player, topInv, slot, clickedInventory);
 		useBrewingCheck(plugin, player, topInv, slot, clickedInventory);
+		return true;
 	}
 	
 	/**
@@ -408,27 +381,23 @@ public final class CheckUtils {
 		if (!(clickedInventory instanceof BrewerInventory && slot <= 2)) {
 			return;
 		}
-		new BukkitRunnable() {
+		plugin.getDeferredActionQueue().defer(player, DeferredActionQueue.Kind.BREWING_SLOT, () -> {
+			ItemStack itemInSlot   = clickedInventory.getItem(slot);
+			ItemStack itemInCursor = player.getItemOnCursor();
+			if (itemInSlot == null) {
+				return;
+			}
 			
-			@Override
-			public void run() {
-				ItemStack itemInSlot   = clickedInventory.getItem(slot);
-				ItemStack itemInCursor = player.getItemOnCursor();
-				if (itemInSlot == null) {
-					return;
-				}
-				
-				int newAmount = itemInSlot.getAmount() - 1 + itemInCursor.getAmount();
-				
-				if (itemInCursor.getType() == Material.AIR) {
-					itemInCursor = itemInSlot.clone();
-				}
-				itemInCursor.setAmount(newAmount);
-				itemInSlot.setAmount(1);
-				topInv.setItem(slot, itemInSlot);
-				player.setItemOnCursor(itemInCursor);
+			int newAmount = itemInSlot.getAmount() - 1 + itemInCursor.getAmount();
+			
+			if (itemInCursor.getType() == Material.AIR) {
+				itemInCursor = itemInSlot.clone();
 			}
-		}.runTask(plugin);
+			itemInCursor.setAmount(newAmount);
+			itemInSlot.setAmount(1);
+			topInv.setItem(slot, itemInSlot);
+			player.setItemOnCursor(itemInCursor);
+		});
 	}
 	
 	/**
@@ -1,10 +1,8 @@
 package com.mikedeejay2.simplestack.util;
 
 import com.mikedeejay2.simplestack.SimpleStack;
-import org.bukkit.Location;
+import com.mikedeejay2.simplestack.core.StackAlgorithms;
 import org.bukkit.Material;
-import org.bukkit.World;
-import org.bukkit.block.Block;
 import org.bukkit.entity.Player;
 import org.bukkit.event.inventory.InventoryClickEvent;
 import org.bukkit.inventory.*;
@@ -35,19 +33,14 @@ public final class ClickUtils {
 		if (!itemInCursor.isSimilar(itemInSlot)) {
 			player.setItemOnCursor(itemInSlot);
 			clickedInv.setItem(slot, itemInCursor);
-			player.updateInventory();
+			plugin.getInventoryUpdateQueue().requestUpdate(player);
 			return;
 		}
 		
-		int newAmount        = itemInCursor.getAmount() + itemInSlot.getAmount();
-		int extraAmount      = 0;
-		int maxAmountInStack = StackUtils.getMaxAmount(plugin, itemInCursor);
-		if (newAmount > maxAmountInStack) {
-			extraAmount = (newAmount - maxAmountInStack);
-			newAmount = maxAmountInStack;
-		}
+		int totalAmount = itemInCursor.getAmount() + itemInSlot.getAmount();
+		int newAmount   = StackAlgorithms.merge(itemInCursor.getAmount(), itemInSlot.getAmount(), StackUtils.getMaxAmount(plugin, itemInCursor));
 		itemInCursor.setAmount(newAmount);
-		itemInSlot.setAmount(extraAmount);
+		itemInSlot.setAmount(totalAmount - newAmount);
 		if (StackUtils.shouldSwitch(clickedInv, slot)) {
 			clickedInv.setItem(slot, itemInCursor);
 			player.getOpenInventory().setCursor(itemInSlot);
@@ -56,7 +49,7 @@ public final class ClickUtils {
 			player.setItemOnCursor(itemInCursor);
 			CheckUtils.useStonecutterCheck(plugin, player, topInv, slot, clickedInv, false);
 		}
-		player.updateInventory();
+		plugin.getInventoryUpdateQueue().requestUpdate(player);
 	}
 	
 	/**
@@ -92,7 +85,7 @@ public final class ClickUtils {
 				leftClick(plugin, itemInSlot, itemInCursor, player, event);
 				return;
 			}
-			player.updateInventory();
+			plugin.getInventoryUpdateQueue().requestUpdate(player);
 			return;
 		}
 		
@@ -102,29 +95,35 @@ public final class ClickUtils {
 			itemInSlot.setAmount(bottomAmount);
 			itemInCursor.setAmount(topAmount);
 		}
-		player.updateInventory();
+		plugin.getInventoryUpdateQueue().requestUpdate(player);
 	}
 	
 	/**
 	 * Emulates a shift click event that includes moving an item from one inventory to another
 	 * inventory while taking into account that the item is stacked and can combine with other
-	 * unstackable items.
+	 * unstackable items. The move is run in a transaction over the viewed inventories and
+	 * written back in one commit.
 	 *
 	 * @param itemInSlot The item clicked on by the cursor
 	 * @param player     The player that has clicked
 	 * @param event      The InventoryClickEvent that this method was called from
 	 */
 	public static void shiftClick(SimpleStack plugin, ItemStack itemInSlot, Player player, InventoryClickEvent event) {
-		Inventory inv       = null;
-		Inventory topInv    = player.getOpenInventory().getTopInventory();
-		Inventory bottomInv = player.getOpenInventory().getBottomInventory();
-		int       slot      = event.getSlot();
-		if (!(bottomInv instanceof PlayerInventory) || !(topInv instanceof CraftingInventory && topInv.getSize() == 5)) {
-			shiftClickSeperateInv(plugin, itemInSlot, event, inv, topInv, bottomInv, slot, player);
-		} else {
-			shiftClickSameInv(plugin, itemInSlot, event, bottomInv);
+		Inventory            inv         = null;
+		Inventory            topInv      = player.getOpenInventory().getTopInventory();
+		Inventory            bottomInv   = player.getOpenInventory().getBottomInventory();
+		int                  slot        = event.getSlot();
+		InventoryTransaction transaction = new InventoryTransaction(plugin);
+		itemInSlot = transaction.getItem(event.getClickedInventory(), slot);
+		if (itemInSlot != null) {
+			if (!(bottomInv instanceof PlayerInventory) || !(topInv instanceof CraftingInventory && topInv.getSize() == 5)) {
+				shiftClickSeperateInv(plugin, transaction, itemInSlot, event, inv, topInv, bottomInv, slot, player);
+			} else {
+				shiftClickSameInv(plugin, transaction, itemInSlot, event, bottomInv);
+			}
+			transaction.commit();
 		}
-		player.updateInventory();
+		plugin.getInventoryUpdateQueue().requestUpdate(player);
 		event.setCancelled(true);
 	}
 	
@@ -133,14 +132,15 @@ public final class ClickUtils {
 	 * taking into account that the item can stack with other unstackable items and different
 	 * behaviors of different GUIs
 	 *
-	 * @param itemInSlot The item clicked on by the cursor
-	 * @param event      The InventoryClickEvent that this method was called from
-	 * @param toInv      The Inventory that was clicked on (method reassigns this to the inventory that the items moves to)
-	 * @param topInv     The top inventory that the player is viewing
-	 * @param bottomInv  The bottom inventory that the player is viewing
-	 * @param slot       The slot that the player has clicked on
+	 * @param transaction The transaction that the shift click is run in
+	 * @param itemInSlot  The item clicked on by the cursor
+	 * @param event       The InventoryClickEvent that this method was called from
+	 * @param toInv       The Inventory that was clicked on (method reassigns this to the inventory that the items moves to)
+	 * @param topInv      The top inventory that the player is viewing
+	 * @param bottomInv   The bottom inventory that the player is viewing
+	 * @param slot        The slot that the player has clicked on
 	 */
-	private static void shiftClickSeperateInv(SimpleStack plugin, ItemStack itemInSlot, InventoryClickEvent event, Inventory toInv, Inventory topInv, Inventory bottomInv, int slot, Player player) {
+	private static void shiftClickSeperateInv(SimpleStack plugin, InventoryTransaction transaction, ItemStack itemInSlot, InventoryClickEvent event, Inventory toInv, Inventory topInv, Inventory bottomInv, int slot, Player player) {
 		Inventory clickedInventory = event.getClickedInventory();
 		if (clickedInventory.equals(bottomInv)) {
 			if (topInv instanceof CraftingInventory && topInv.getSize() == 5) {
@@ -152,207 +152,128 @@ public final class ClickUtils {
 			toInv = bottomInv;
 		}
 		
-		int     startSlot     = 0;
-		int     endSlot       = toInv.getSize();
-		boolean reverse       = false;
-		boolean playerOrder   = false;
-		boolean reverseHotbar = false;
 		if (toInv instanceof PlayerInventory) {
-			endSlot -= 5;
-			
-			if (topInv instanceof GrindstoneInventory && slot == 2) {
-				topInv.setItem(0, null);
-				topInv.setItem(1, null);
-				ClickUtils.shiftClickSameInv(plugin, itemInSlot, event, bottomInv);
-				return;
-			} else if (topInv instanceof CraftingInventory || topInv instanceof FurnaceInventory || topInv instanceof AnvilInventory ||
-					topInv instanceof SmithingInventory || topInv instanceof GrindstoneInventory) {
-				playerOrder = true;
-			}
-			
-			if ((topInv instanceof CraftingInventory && slot == 0) || (topInv instanceof FurnaceInventory && slot == 2) ||
-					(topInv instanceof AnvilInventory && slot == 2) || (topInv instanceof SmithingInventory && slot == 2) ||
-					(topInv instanceof EnchantingInventory && slot == 0) || (topInv instanceof GrindstoneInventory && slot == 2) ||
-					(topInv instanceof StonecutterInventory && slot == 2) || (topInv instanceof LoomInventory && slot == 3) ||
-					(topInv instanceof CartographyInventory && slot == 2) || (topInv instanceof BrewerInventory && slot < 3)) {
-				reverseHotbar = true;
-			}
-			
-		} else if (toInv instanceof CraftingInventory) {
-			++startSlot;
-		} else if (toInv instanceof FurnaceInventory) {
-			--endSlot;
-			if (itemInSlot.getType().isFuel()) {
-				reverse = true;
-			}
-		} else if (toInv instanceof EnchantingInventory) {
-			--endSlot;
-			if (toInv.getItem(0) != null) {
-				return;
-			}
-			ItemStack itemToMove = itemInSlot.clone();
-			itemToMove.setAmount(1);
-			MoveUtils.moveItem(plugin, itemToMove, clickedInventory, slot, toInv, startSlot, endSlot, reverse);
-			itemInSlot.setAmount(itemInSlot.getAmount() - 1);
-			clickedInventory.setItem(slot, itemInSlot);
-			return;
-		} else if (toInv instanceof AnvilInventory || toInv instanceof SmithingInventory) {
-			--endSlot;
-		} else if (toInv instanceof LoomInventory) {
-			if (itemInSlot.getType().toString().endsWith("BANNER")) {
-				startSlot = 0;
-				endSlot = 1;
-			} else if (itemInSlot.getType().toString().endsWith("PATTERN")) {
-				startSlot = 2;
-				endSlot = 3;
-			} else if (itemInSlot.getType().toString().endsWith("DYE")) {
-				startSlot = 1;
-				endSlot = 2;
-			} else {
-				ClickUtils.shiftClickSameInv(plugin, itemInSlot, event, bottomInv);
-				return;
-			}
-		} else if (toInv instanceof CartographyInventory) {
-			if (itemInSlot.getType() == Material.FILLED_MAP) {
-				startSlot = 0;
-				endSlot = 1;
-			} else if (itemInSlot.getType() == Material.PAPER) {
-				startSlot = 1;
-				endSlot = 2;
-			} else {
-				ClickUtils.shiftClickSameInv(plugin, itemInSlot, event, bottomInv);
-				return;
-			}
-		} else if (toInv instanceof AbstractHorseInventory) {
-			if (itemInSlot.getType() == Material.SADDLE) {
-				startSlot = 0;
-				endSlot = 1;
-			} else if (itemInSlot.getType().toString().endsWith("HORSE_ARMOR") && toInv instanceof HorseInventory) {
-				startSlot = 1;
-				endSlot = 2;
-			} else if (toInv.getSize() > 3) {
-				startSlot = 2;
-			} else {
-				ClickUtils.shiftClickSameInv(plugin, itemInSlot, event, bottomInv);
-				return;
-			}
-		} else if (toInv instanceof StonecutterInventory || toInv instanceof GrindstoneInventory) {
-			--endSlot;
-		} else if (toInv instanceof BrewerInventory) {
-			if (itemInSlot.getType().toString().endsWith("BOTTLE") || itemInSlot.getType().toString().endsWith("POTION")) {
-				ItemStack oldItemSlot = itemInSlot;
-				itemInSlot = itemInSlot.clone();
-				itemInSlot.setAmount(1);
-				for (int i = 0; i < 3; i++) {
-					if (oldItemSlot.getAmount() == 0) {
-						break;
-					}
-					if (toInv.getItem(i) != null) {
-						continue;
-					}
-					oldItemSlot.setAmount(oldItemSlot.getAmount() - 1);
-					clickedInventory.setItem(slot, oldItemSlot);
-					toInv.setItem(i, itemInSlot);
+			ShiftClickStrategy strategy = plugin.getShiftClickRegistry().get(topInv);
+			if (clickedInventory.equals(topInv) && strategy.isResultSlot(slot)) {
+				int amount = itemInSlot.getAmount();
+				MoveUtils.moveItemReverseHotbar(plugin, transaction, itemInSlot, clickedInventory, slot, bottomInv);
+				if (transaction.getItem(clickedInventory, slot) == null || itemInSlot.getAmount() != amount) {
+					strategy.consume(transaction, topInv);
 				}
-				return;
-			} else if (itemInSlot.getType() == Material.BLAZE_POWDER) {
-				startSlot = 3;
-				endSlot = 5;
-				reverse = true;
+			} else if (strategy.usesPlayerOrder()) {
+				MoveUtils.moveItemPlayerOrder(plugin, transaction, itemInSlot, clickedInventory, slot, bottomInv);
 			} else {
-				startSlot = 3;
-				endSlot = 4;
+				MoveUtils.moveItem(plugin, transaction, itemInSlot, clickedInventory, slot, toInv, 0, toInv.getSize() - 5, false);
 			}
-		} else if (toInv instanceof BeaconInventory) {
-			Material type = itemInSlot.getType();
-			if ((type != Material.IRON_INGOT && type != Material.GOLD_INGOT && type != Material.DIAMOND && type != Material.EMERALD &&
-					type != Material.NETHERITE_INGOT) || toInv.getItem(0) != null) {
-				ClickUtils.shiftClickSameInv(plugin, itemInSlot, event, bottomInv);
-				return;
-			}
-			ItemStack oldItemSlot = itemInSlot;
-			itemInSlot = itemInSlot.clone();
-			itemInSlot.setAmount(1);
-			oldItemSlot.setAmount(oldItemSlot.getAmount() - 1);
-			clickedInventory.setItem(slot, oldItemSlot);
-			toInv.setItem(0, itemInSlot);
 			return;
-		} else if (ShulkerBoxes.isShulkerBox(itemInSlot.getType()) && toInv.getLocation() != null) {
-			Location location = toInv.getLocation();
-			World    world    = location.getWorld();
-			Block    block    = world.getBlockAt(location);
-			Material blockMat = block.getType();
-			if (ShulkerBoxes.isShulkerBox(blockMat)) {
-				ClickUtils.shiftClickSameInv(plugin, itemInSlot, event, bottomInv);
-				return;
-			}
 		}
 		
-		if (reverseHotbar) {
-			MoveUtils.moveItemReverseHotbar(plugin, itemInSlot, clickedInventory, slot, bottomInv);
-		} else if (playerOrder) {
-			MoveUtils.moveItemPlayerOrder(plugin, itemInSlot, clickedInventory, slot, bottomInv);
+		ShiftClickRule rule = plugin.getShiftClickRegistry().get(toInv).getRule(itemInSlot.getType());
+		if (rule == null || rule.getAction() == ShiftClickRule.Action.REJECT) {
+			ClickUtils.shiftClickSameInv(plugin, transaction, itemInSlot, event, bottomInv);
+			return;
+		}
+		int     startSlot = rule.getStartSlot();
+		int     endSlot   = Math.min(rule.getEndSlot(), toInv.getSize());
+		boolean moved;
+		if (rule.getAction() == ShiftClickRule.Action.MOVE_SINGLE) {
+			moved = moveSingleItems(transaction, itemInSlot, clickedInventory, slot, toInv, startSlot, endSlot);
 		} else {
-			MoveUtils.moveItem(plugin, itemInSlot, clickedInventory, slot, toInv, startSlot, endSlot, reverse);
+			moved = MoveUtils.moveItem(plugin, transaction, itemInSlot, clickedInventory, slot, toInv, startSlot, endSlot, rule.isReverse());
+		}
+		if (!moved && rule.shouldFallback()) {
+			ClickUtils.shiftClickSameInv(plugin, transaction, itemInSlot, event, bottomInv);
 		}
 	}
 	
+	/**
+	 * Move a single item into every empty slot of a range of slots, used for inventories
+	 * like brewing stands that only accept one item per slot.
+	 *
+	 * @param transaction      The transaction that the shift click is run in
+	 * @param itemInSlot       The item clicked on by the cursor
+	 * @param clickedInventory The inventory that was clicked
+	 * @param slot             The slot that the player has clicked on
+	 * @param toInv            The inventory that the items move to
+	 * @param startSlot        The first slot of the range
+	 * @param endSlot          The slot after the last slot of the range
+	 *
+	 * @return Whether any item was moved
+	 */
+	private static boolean moveSingleItems(InventoryTransaction transaction, ItemStack itemInSlot, Inventory clickedInventory, int slot, Inventory toInv, int startSlot, int endSlot) {
+		ItemStack singleItem = itemInSlot.clone();
+		singleItem.setAmount(1);
+		boolean moved = false;
+		for (int i = startSlot; i < endSlot && itemInSlot.getAmount() > 0; ++i) {
+			if (transaction.getItem(toInv, i) != null) {
+				continue;
+			}
+			itemInSlot.setAmount(itemInSlot.getAmount() - 1);
+			transaction.setItem(toInv, i, singleItem);
+			moved = true;
+		}
+		if (moved) {
+			transaction.setItem(clickedInventory, slot, itemInSlot);
+		}
+		return moved;
+	}
+	
 	/**
 	 * Emulates shift clicking in the same inventory, this occurs when the player shift clicks in the survival
 	 * inventory when not viewing another inventory or when attempting to shift click an item into another inventory
 	 * like a furnace that will not accept the item being shift clicked in any GUI slot.
 	 *
-	 * @param itemInSlot The item clicked on by the cursor
-	 * @param event      The InventoryClickEvent that this method was called from
-	 * @param bottomInv  The inventory that will be used (This method only uses the player's inventory)
+	 * @param transaction The transaction that the shift click is run in
+	 * @param itemInSlot  The item clicked on by the cursor
+	 * @param event       The InventoryClickEvent that this method was called from
+	 * @param bottomInv   The inventory that will be used (This method only uses the player's inventory)
 	 */
-	private static void shiftClickSameInv(SimpleStack plugin, ItemStack itemInSlot, InventoryClickEvent event, Inventory bottomInv) {
+	private static void shiftClickSameInv(SimpleStack plugin, InventoryTransaction transaction, ItemStack itemInSlot, InventoryClickEvent event, Inventory bottomInv) {
 		Inventory clickedInventory = event.getClickedInventory();
 		Inventory inv;
 		int       slot             = event.getSlot();
 		inv = event.getClickedInventory();
-		String type = itemInSlot.getType().toString();
+		Material type = itemInSlot.getType();
 		if (inv instanceof CraftingInventory) {
-			MoveUtils.moveItemPlayerOrder(plugin, itemInSlot, clickedInventory, slot, bottomInv);
+			MoveUtils.moveItemPlayerOrder(plugin, transaction, itemInSlot, clickedInventory, slot, bottomInv);
 			return;
 		}
-		if (!type.endsWith("_HELMET") && !type.endsWith("_CHESTPLATE") && !type.endsWith("_LEGGINGS") && !type.endsWith("_BOOTS") &&
-				!type.equals("SHIELD") && !type.equals("ELYTRA")) {
+		if (!MaterialTraits.is(type, MaterialTraits.ARMOR) && type != Material.SHIELD) {
 			if (slot < 9) {
-				MoveUtils.moveItem(plugin, itemInSlot, clickedInventory, slot, inv, 9, 36, false);
+				MoveUtils.moveItem(plugin, transaction, itemInSlot, clickedInventory, slot, inv, 9, 36, false);
 			} else if (slot < 36) {
-				MoveUtils.moveItem(plugin, itemInSlot, clickedInventory, slot, inv, 0, 9, false);
+				MoveUtils.moveItem(plugin, transaction, itemInSlot, clickedInventory, slot, inv, 0, 9, false);
 			} else {
-				MoveUtils.moveItem(plugin, itemInSlot, clickedInventory, slot, inv, 9, 36, false);
+				MoveUtils.moveItem(plugin, transaction, itemInSlot, clickedInventory, slot, inv, 9, 36, false);
 			}
 		} else {
 			if (slot < 36) {
-				if (type.endsWith("_BOOTS") && inv.getItem(36) == null) {
-					inv.setItem(36, itemInSlot);
-					inv.setItem(slot, null);
-				} else if (type.endsWith("_LEGGINGS") && inv.getItem(37) == null) {
-					inv.setItem(37, itemInSlot);
-					inv.setItem(slot, null);
-				} else if ((type.endsWith("_CHESTPLATE") || type.equals("ELYTRA")) && inv.getItem(38) == null) {
-					inv.setItem(38, itemInSlot);
-					inv.setItem(slot, null);
-				} else if (type.endsWith("_HELMET") && inv.getItem(39) == null) {
-					inv.setItem(39, itemInSlot);
-					inv.setItem(slot, null);
-				} else if (type.equals("SHIELD") && inv.getItem(40) == null) {
-					inv.setItem(40, itemInSlot);
-					inv.setItem(slot, null);
+				if (MaterialTraits.is(type, MaterialTraits.BOOTS) && transaction.getItem(inv, 36) == null) {
+					transaction.setItem(inv, 36, itemInSlot);
+					transaction.setItem(inv, slot, null);
+				} else if (MaterialTraits.is(type, MaterialTraits.LEGGINGS) && transaction.getItem(inv, 37) == null) {
+					transaction.setItem(inv, 37, itemInSlot);
+					transaction.setItem(inv, slot, null);
+				} else if (MaterialTraits.is(type, MaterialTraits.CHESTPLATE) && transaction.getItem(inv, 38) == null) {
+					transaction.setItem(inv, 38, itemInSlot);
+					transaction.setItem(inv, slot, null);
+				} else if (MaterialTraits.is(type, MaterialTraits.HELMET) && transaction.getItem(inv, 39) == null) {
+					transaction.setItem(inv, 39, itemInSlot);
+					transaction.setItem(inv, slot, null);
+				} else if (type == Material.SHIELD && transaction.getItem(inv, 40) == null) {
+					transaction.setItem(inv, 40, itemInSlot);
+					transaction.setItem(inv, slot, null);
 				} else {
 					if (slot < 9) {
-						MoveUtils.moveItem(plugin, itemInSlot, clickedInventory, slot, inv, 9, 36, false);
+						MoveUtils.moveItem(plugin, transaction, itemInSlot, clickedInventory, slot, inv, 9, 36, false);
 					} else if (slot < 36) {
-						MoveUtils.moveItem(plugin, itemInSlot, clickedInventory, slot, inv, 0, 9, false);
+						MoveUtils.moveItem(plugin, transaction, itemInSlot, clickedInventory, slot, inv, 0, 9, false);
 					} else {
-						MoveUtils.moveItem(plugin, itemInSlot, clickedInventory, slot, inv, 9, 36, false);
+						MoveUtils.moveItem(plugin, transaction, itemInSlot, clickedInventory, slot, inv, 9, 36, false);
 					}
 				}
 			} else {
-				MoveUtils.moveItem(plugin, itemInSlot, clickedInventory, slot, inv, 9, 36, false);
+				MoveUtils.moveItem(plugin, transaction, itemInSlot, clickedInventory, slot, inv, 9, 36, false);
 			}
 		}
 	}
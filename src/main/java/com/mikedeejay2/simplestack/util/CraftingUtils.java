@@ -0,0 +1,185 @@
+package com.mikedeejay2.simplestack.util;
+
+import com.mikedeejay2.simplestack.SimpleStack;
+import com.mikedeejay2.simplestack.core.StackAlgorithms;
+import com.mikedeejay2.simplestack.runnables.DeferredActionQueue;
+import org.bukkit.Material;
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.PlayerInventory;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Bulk craft engine of crafting tables and the player's crafting grid. Taking the result of a
+ * recipe made of stacked ingredients is done in one pass: the amount of crafts is calculated from
+ * the grid and the room in the player's inventory, and the grid and the extra results are changed with
+ * one <tt>InventoryTransaction</tt>. The containers that the ingredients leave behind (buckets, bottles)
+ * are given to the player on the next tick, once the click has placed the result, so that they can
+ * never take the room that the result was counted on.
+ *
+ * @author Mikedeejay2
+ */
+public final class CraftingUtils {
+	
+	// The container that every material leaves behind in a crafting grid by ordinal, null if none
+	private static final Material[] REMAINDERS;
+	
+	static {
+		Material[] materials = Material.values();
+		REMAINDERS = new Material[materials.length];
+		for (Material material : materials) {
+			if (material == Material.BUCKET || material.isLegacy()) {
+				continue;
+			}
+			if (MaterialTraits.is(material, MaterialTraits.BUCKET)) {
+				REMAINDERS[material.ordinal()] = Material.BUCKET;
+			} else if (material == Material.HONEY_BOTTLE || material == Material.DRAGON_BREATH) {
+				REMAINDERS[material.ordinal()] = Material.GLASS_BOTTLE;
+			}
+		}
+	}
+	
+	private CraftingUtils() {
+	}
+	
+	/**
+	 * Take the result of a crafting grid. The ingredients of every craft are removed from the grid
+	 * and their containers are given to the player on the next tick. When shift clicking, the results of every
+	 * craft except for the one in the result slot are added to the player's inventory as well, the result
+	 * slot itself is moved by the shift click afterwards.
+	 *
+	 * @param player     The player taking the result
+	 * @param topInv     The crafting inventory
+	 * @param resultItem The result of one craft
+	 * @param shiftClick Whether the result is shift clicked
+	 *
+	 * @return The amount of crafts, 0 if nothing was crafted
+	 */
+	public static int craft(SimpleStack plugin, Player player, Inventory topInv, ItemStack resultItem, boolean shiftClick) {
+		PlayerInventory      playerInv   = player.getInventory();
+		InventoryTransaction transaction = new InventoryTransaction(plugin);
+		int                  gridSize    = topInv.getSize();
+		int                  crafts      = 1;
+		if (shiftClick) {
+			crafts = getMaxCrafts(plugin, transaction, topInv, resultItem, playerInv);
+			if (crafts <= 0) {
+				return 0;
+			}
+		}
+		
+		Map<Material, Integer> remainders = new EnumMap<>(Material.class);
+		for (int i = 1; i < gridSize; i++) {
+			ItemStack stack = transaction.getItem(topInv, i);
+			if (stack == null) {
+				continue;
+			}
+			Material remainder = REMAINDERS[stack.getType().ordinal()];
+			if (remainder != null) {
+				remainders.merge(remainder, crafts, Integer::sum);
+			}
+			stack.setAmount(stack.getAmount() - crafts);
+		}
+		
+		int extraResults = (crafts - 1) * resultItem.getAmount();
+		if (extraResults > 0) {
+			transaction.supply(resultItem, extraResults);
+			MoveUtils.addItemPlayerOrder(plugin, transaction, resultItem, extraResults, playerInv);
+		}
+		if (!transaction.commit()) {
+			return 0;
+		}
+		if (!remainders.isEmpty()) {
+			plugin.getDeferredActionQueue().defer(player, DeferredActionQueue.Kind.CRAFT_REMAINDERS, () ->
+					giveRemainders(plugin, player, remainders));
+		}
+		return crafts;
+	}
+	
+	/**
+	 * Add the containers that the ingredients of a craft left behind to the player's inventory.
+	 * Containers that don't fit are dropped at the player.
+	 *
+	 * @param player     The player that crafted
+	 * @param remainders The amount of every container
+	 */
+	private static void giveRemainders(SimpleStack plugin, Player player, Map<Material, Integer> remainders) {
+		PlayerInventory        playerInv   = player.getInventory();
+		InventoryTransaction   transaction = new InventoryTransaction(plugin);
+		Map<Material, Integer> leftovers   = new EnumMap<>(remainders);
+		for (Map.Entry<Material, Integer> entry : leftovers.entrySet()) {
+			ItemStack container = new ItemStack(entry.getKey());
+			transaction.supply(container, entry.getValue());
+			entry.setValue(MoveUtils.addItemPlayerOrder(plugin, transaction, container, entry.getValue(), playerInv));
+		}
+		Map<Material, Integer> drops = transaction.commit() ? leftovers : remainders;
+		for (Map.Entry<Material, Integer> entry : drops.entrySet()) {
+			dropItem(plugin, player, new ItemStack(entry.getKey()), entry.getValue());
+		}
+	}
+	
+	/**
+	 * Calculate how many times the recipe of a crafting grid can be crafted at once. This is limited
+	 * by the smallest stack in the grid and by the room for the results in the player's inventory.
+	 *
+	 * @param transaction The transaction that the grid and the player's inventory are read from
+	 * @param topInv      The crafting inventory
+	 * @param resultItem  The result of one craft
+	 * @param playerInv   The player's inventory
+	 *
+	 * @return The amount of crafts
+	 */
+	private static int getMaxCrafts(SimpleStack plugin, InventoryTransaction transaction, Inventory topInv, ItemStack resultItem, PlayerInventory playerInv) {
+		int crafts = Integer.MAX_VALUE;
+		for (int i = 1; i < topInv.getSize(); i++) {
+			ItemStack stack = transaction.getItem(topInv, i);
+			if (stack != null) {
+				crafts = Math.min(crafts, stack.getAmount());
+			}
+		}
+		if (crafts == Integer.MAX_VALUE) {
+			return 0;
+		}
+		TransactionSlotArray slots    = transaction.getSlotArray(playerInv);
+		int                  capacity = StackAlgorithms.capacity(slots, slots.register(resultItem), 0, 36);
+		return Math.min(crafts, capacity / resultItem.getAmount());
+	}
+	
+	/**
+	 * Drop an amount of an item at a player because it didn't fit into their inventory
+	 *
+	 * @param player The player to drop the item at
+	 * @param item   The item to drop, its amount is ignored
+	 * @param amount The amount to drop
+	 */
+	private static void dropItem(SimpleStack plugin, Player player, ItemStack item, int amount) {
+		int maxAmount = StackUtils.getMaxAmount(plugin, item);
+		while (amount > 0) {
+			ItemStack drop = item.clone();
+			drop.setAmount(Math.min(amount, maxAmount));
+			amount -= drop.getAmount();
+			player.getWorld().dropItemNaturally(player.getLocation(), drop);
+		}
+	}
+	
+	/**
+	 * Make the crafting inventory recalculate its recipe on the next tick by resetting
+	 * the first slot of the grid.
+	 *
+	 * @param topInv The crafting inventory
+	 */
+	public static void refreshRecipe(SimpleStack plugin, Inventory topInv) {
+		plugin.getDeferredActionQueue().defer(topInv, DeferredActionQueue.Kind.RECIPE_REFRESH, () -> {
+			ItemStack tempItem = topInv.getItem(1);
+			if (tempItem == null) {
+				tempItem = new ItemStack(Material.AIR);
+			}
+			tempItem = tempItem.clone();
+			topInv.setItem(1, null);
+			topInv.setItem(1, tempItem);
+		});
+	}
+	
+}
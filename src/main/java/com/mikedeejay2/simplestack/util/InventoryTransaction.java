@@ -0,0 +1,252 @@
+package com.mikedeejay2.simplestack.util;
+
+import com.mikedeejay2.simplestack.SimpleStack;
+import org.bukkit.Material;
+import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.ItemStack;
+
+import java.util.*;
+
+/**
+ * A transaction over the contents of one or more inventories. The contents of an inventory are
+ * loaded once with <tt>getContents()</tt> the first time that the inventory is used, algorithms then
+ * read and write the loaded contents instead of the live inventory, and only the slots that changed
+ * are written back to the inventories when the transaction is committed. <p>
+ * Items returned by <tt>getItem</tt> can be modified directly like the mirrors returned by
+ * <tt>Inventory.getItem</tt>, and items passed to <tt>setItem</tt> are copied like
+ * <tt>Inventory.setItem</tt> does, so code written against a live inventory behaves the same way
+ * against a transaction. <p>
+ * Before anything is written the commit checks that no item was created out of nothing: the total
+ * amount of every kind of item in the transaction may only grow by the amount that was declared with
+ * <tt>supply</tt>. If the check fails nothing is written.
+ *
+ * @author Mikedeejay2
+ */
+public final class InventoryTransaction {
+	
+	private final SimpleStack        plugin;
+	// The loaded contents of every inventory used by the transaction
+	private final List<Contents>     inventories;
+	// Amounts that entered the transaction from outside of its inventories by similarity key
+	private final Map<Long, Integer> supplied;
+	// Whether the transaction has already been committed
+	private       boolean            committed;
+	
+	public InventoryTransaction(SimpleStack plugin) {
+		this.plugin = plugin;
+		this.inventories = new ArrayList<>(2);
+		this.supplied = new HashMap<>();
+	}
+	
+	/**
+	 * Get the item in a slot of an inventory. The returned item belongs to the transaction,
+	 * changing it changes the contents of the slot.
+	 *
+	 * @param inventory The inventory to get the item from
+	 * @param slot      The slot of the item
+	 *
+	 * @return The item in the slot, null if the slot is empty
+	 */
+	public ItemStack getItem(Inventory inventory, int slot) {
+		return contents(inventory).get(slot);
+	}
+	
+	/**
+	 * Set the item in a slot of an inventory. The item is copied into the slot.
+	 *
+	 * @param inventory The inventory to set the item in
+	 * @param slot      The slot to set
+	 * @param item      The new item of the slot, null to empty the slot
+	 */
+	public void setItem(Inventory inventory, int slot, ItemStack item) {
+		contents(inventory).set(slot, item);
+	}
+	
+	/**
+	 * Get the slot array of an inventory of this transaction. The slot array is created the first
+	 * time that it is requested and shared by every later call, so item ids handed out by it stay
+	 * valid for the rest of the transaction.
+	 *
+	 * @param inventory The inventory to get the slot array of
+	 *
+	 * @return The slot array of the inventory
+	 */
+	public TransactionSlotArray getSlotArray(Inventory inventory) {
+		Contents contents = contents(inventory);
+		if (contents.slots == null) {
+			contents.slots = new TransactionSlotArray(plugin, this, inventory);
+		}
+		return contents.slots;
+	}
+	
+	/**
+	 * Declare that an amount of an item enters the inventories of this transaction from somewhere else,
+	 * for example the cursor or the result slot of a crafting recipe. Without this the commit would
+	 * see the new items as a dupe.
+	 *
+	 * @param item   The item that enters the transaction
+	 * @param amount The amount of the item
+	 */
+	public void supply(ItemStack item, int amount) {
+		if (item == null || amount <= 0) {
+			return;
+		}
+		supplied.merge(StackUtils.similarityKey(item), amount, Integer::sum);
+	}
+	
+	/**
+	 * Write every changed slot back to its inventory. Nothing is written if the transaction
+	 * would create items that weren't supplied to it.
+	 *
+	 * @return Whether the changes were written
+	 */
+	public boolean commit() {
+		if (committed) {
+			throw new IllegalStateException("Transaction has already been committed");
+		}
+		committed = true;
+		Map<Long, Integer> created = new HashMap<>();
+		for (Contents contents : inventories) {
+			contents.count(created);
+		}
+		for (Map.Entry<Long, Integer> entry : created.entrySet()) {
+			int amount = entry.getValue() - supplied.getOrDefault(entry.getKey(), 0);
+			if (amount <= 0) {
+				continue;
+			}
+			Material material = Material.values()[(int)(entry.getKey() >>> 32)];
+			plugin.getLogger().warning(plugin.config().getAccessor().getString("simplestack.warnings.rejected_transaction")
+					.replace("{AMOUNT}", String.valueOf(amount)).replace("{MAT}", material.toString()));
+			return false;
+		}
+		for (Contents contents : inventories) {
+			contents.write();
+		}
+		return true;
+	}
+	
+	/**
+	 * Get the loaded contents of an inventory, loading them if this is the first time
+	 * that the inventory is used in the transaction.
+	 *
+	 * @param inventory The inventory to get the contents of
+	 *
+	 * @return The contents of the inventory
+	 */
+	private Contents contents(Inventory inventory) {
+		for (Contents contents : inventories) {
+			if (contents.inventory.equals(inventory)) {
+				return contents;
+			}
+		}
+		Contents contents = new Contents(inventory);
+		inventories.add(contents);
+		return contents;
+	}
+	
+	/**
+	 * Return whether an item is empty
+	 *
+	 * @param item The item to check
+	 *
+	 * @return Whether the item is null, air or has no amount
+	 */
+	private static boolean isEmpty(ItemStack item) {
+		return item == null || item.getType() == Material.AIR || item.getAmount() <= 0;
+	}
+	
+	/**
+	 * The contents of one inventory of a transaction
+	 */
+	private static final class Contents {
+		
+		// The inventory that the contents belong to
+		private final Inventory            inventory;
+		// The contents when they were loaded
+		private final ItemStack[]          original;
+		// The contents that the transaction works on
+		private final ItemStack[]          working;
+		// Slots that have a working item, other slots still hold their original item
+		private final BitSet               touched;
+		// The slot array of the inventory, null until it is first requested
+		private       TransactionSlotArray slots;
+		
+		private Contents(Inventory inventory) {
+			this.inventory = inventory;
+			this.original = inventory.getContents();
+			this.working = new ItemStack[original.length];
+			this.touched = new BitSet(original.length);
+		}
+		
+		/**
+		 * Get the working item of a slot. The original item is only copied the first
+		 * time that the slot is used.
+		 *
+		 * @param slot The slot to get
+		 *
+		 * @return The working item, null if the slot is empty
+		 */
+		private ItemStack get(int slot) {
+			if (slot < 0 || slot >= working.length) {
+				return null;
+			}
+			if (!touched.get(slot)) {
+				touched.set(slot);
+				working[slot] = isEmpty(original[slot]) ? null : original[slot].clone();
+			}
+			ItemStack item = working[slot];
+			return isEmpty(item) ? null : item;
+		}
+		
+		/**
+		 * Set the working item of a slot
+		 *
+		 * @param slot The slot to set
+		 * @param item The new item, copied into the slot
+		 */
+		private void set(int slot, ItemStack item) {
+			if (slot < 0 || slot >= working.length) {
+				throw new ArrayIndexOutOfBoundsException(slot);
+			}
+			touched.set(slot);
+			working[slot] = isEmpty(item) ? null : item.clone();
+		}
+		
+		/**
+		 * Add how much the amount of every kind of item grew in these contents to a map
+		 *
+		 * @param created Map of the grown amounts by similarity key
+		 */
+		private void count(Map<Long, Integer> created) {
+			for (int slot = touched.nextSetBit(0); slot >= 0; slot = touched.nextSetBit(slot + 1)) {
+				ItemStack before = original[slot];
+				ItemStack after  = working[slot];
+				if (!isEmpty(before)) {
+					created.merge(StackUtils.similarityKey(before), -before.getAmount(), Integer::sum);
+				}
+				if (!isEmpty(after)) {
+					created.merge(StackUtils.similarityKey(after), after.getAmount(), Integer::sum);
+				}
+			}
+		}
+		
+		/**
+		 * Write every slot that changed to the inventory
+		 */
+		private void write() {
+			for (int slot = touched.nextSetBit(0); slot >= 0; slot = touched.nextSetBit(slot + 1)) {
+				ItemStack before = original[slot];
+				ItemStack after  = working[slot];
+				if (isEmpty(after)) {
+					if (!isEmpty(before)) {
+						inventory.setItem(slot, null);
+					}
+				} else if (isEmpty(before) || !after.equals(before)) {
+					inventory.setItem(slot, after);
+				}
+			}
+		}
+	
+	}
+	
+}
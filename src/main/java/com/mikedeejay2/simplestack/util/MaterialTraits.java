@@ -0,0 +1,121 @@
+package com.mikedeejay2.simplestack.util;
+
+import org.bukkit.Material;
+
+/**
+ * Table of the traits of every material that the click and move algorithms check for. The traits
+ * of a material are stored as bit flags at the material's ordinal and are classified once when the
+ * class is loaded, so checking a trait is an array lookup instead of a <tt>Material.toString()</tt>
+ * and a string comparison.
+ *
+ * @author Mikedeejay2
+ */
+public final class MaterialTraits {
+	
+	public static final int HELMET         = 1;
+	public static final int CHESTPLATE     = 1 << 1;
+	public static final int LEGGINGS       = 1 << 2;
+	public static final int BOOTS          = 1 << 3;
+	public static final int HORSE_ARMOR    = 1 << 4;
+	public static final int BUCKET         = 1 << 5;
+	public static final int STEW           = 1 << 6;
+	public static final int BANNER         = 1 << 7;
+	public static final int DYE            = 1 << 8;
+	public static final int PATTERN        = 1 << 9;
+	public static final int POTION         = 1 << 10;
+	public static final int SHULKER_BOX    = 1 << 11;
+	public static final int FUEL           = 1 << 12;
+	public static final int BEACON_PAYMENT = 1 << 13;
+	// Every item that goes into an armor slot of the player's inventory
+	public static final int ARMOR          = HELMET | CHESTPLATE | LEGGINGS | BOOTS;
+	
+	// The traits of every material by ordinal
+	private static final int[] TRAITS;
+	
+	static {
+		Material[] materials = Material.values();
+		TRAITS = new int[materials.length];
+		for (Material material : materials) {
+			TRAITS[material.ordinal()] = classify(material);
+		}
+	}
+	
+	private MaterialTraits() {
+	}
+	
+	/**
+	 * Return whether a material has any of the traits specified
+	 *
+	 * @param material The material to check
+	 * @param traits   The traits to check for, combined with <tt>|</tt>
+	 *
+	 * @return Whether the material has any of the traits
+	 */
+	public static boolean is(Material material, int traits) {
+		return (TRAITS[material.ordinal()] & traits) != 0;
+	}
+	
+	/**
+	 * Classify the traits of a material
+	 *
+	 * @param material The material to classify
+	 *
+	 * @return The traits of the material
+	 */
+	private static int classify(Material material) {
+		String name   = material.toString();
+		int    traits = 0;
+		if (name.endsWith("HELMET")) {
+			traits |= HELMET;
+		}
+		if (name.endsWith("_CHESTPLATE") || material == Material.ELYTRA) {
+			traits |= CHESTPLATE;
+		}
+		if (name.endsWith("_LEGGINGS")) {
+			traits |= LEGGINGS;
+		}
+		if (name.endsWith("_BOOTS")) {
+			traits |= BOOTS;
+		}
+		if (name.endsWith("HORSE_ARMOR")) {
+			traits |= HORSE_ARMOR;
+		}
+		if (name.endsWith("BUCKET")) {
+			traits |= BUCKET;
+		}
+		if (name.endsWith("_STEW") || name.endsWith("_SOUP")) {
+			traits |= STEW;
+		}
+		if (name.endsWith("BANNER")) {
+			traits |= BANNER;
+		}
+		if (name.endsWith("DYE")) {
+			traits |= DYE;
+		}
+		if (name.endsWith("PATTERN")) {
+			traits |= PATTERN;
+		}
+		if (name.endsWith("BOTTLE") || name.endsWith("POTION")) {
+			traits |= POTION;
+		}
+		if (name.endsWith("SHULKER_BOX") && !material.isLegacy()) {
+			traits |= SHULKER_BOX;
+		}
+		if (!material.isLegacy() && material.isFuel()) {
+			traits |= FUEL;
+		}
+		switch (material) {
+			case IRON_INGOT:
+			case GOLD_INGOT:
+			case DIAMOND:
+			case EMERALD:
+			case NETHERITE_INGOT:
+				traits |= BEACON_PAYMENT;
+				break;
+			default:
+				break;
+		}
+		return traits;
+	}
+	
+}
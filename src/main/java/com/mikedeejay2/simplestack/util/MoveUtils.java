@@ -1,6 +1,8 @@
 package com.mikedeejay2.simplestack.util;
 
 import com.mikedeejay2.simplestack.SimpleStack;
+import com.mikedeejay2.simplestack.core.StackAlgorithms;
+import com.mikedeejay2.simplestack.runnables.DeferredActionQueue;
 import org.bukkit.Location;
 import org.bukkit.Material;
 import org.bukkit.Sound;
@@ -15,7 +17,8 @@ import org.bukkit.event.block.BlockBreakEvent;
 import org.bukkit.event.inventory.InventoryDragEvent;
 import org.bukkit.inventory.*;
 import org.bukkit.inventory.meta.BlockStateMeta;
-import org.bukkit.scheduler.BukkitRunnable;
+
+import java.util.Map;
 
 /**
  * Utilities for moving items from one location to another
@@ -26,124 +29,101 @@ public final class MoveUtils {
 	
 	/**
 	 * Emulates picking up an item that is regularly unstackable from the ground
-	 * and attempting to stack it with other items in the player's inventory.
+	 * and attempting to stack it with other items in the player's inventory. <p>
+	 * The inventory is read once into a transaction, the item is merged into the partial stacks
+	 * of its storage slots and whatever is left goes into the first free slot, and only the touched
+	 * slots are written back. If only part of the item fit, the rest stays on the ground.
 	 *
 	 * @param event      The cancellable event that this method has been called in
 	 * @param groundItem The item on the ground that this method is attempting to move to a player's inventory
 	 * @param entity     The entity attempting to pick up the item
 	 * @param item       The ItemStack contained inside of the groundItem
 	 *
-	 * @return Whether the move was successful or not
+	 * @return Whether any of the item was picked up
 	 */
 	public static boolean moveItemToInventory(SimpleStack plugin, Cancellable event, Item groundItem, LivingEntity entity, ItemStack item) {
-		Inventory inv = ((InventoryHolder)entity).getInventory();
-		for (int i = 0; i < inv.getStorageContents().length; i++) {
-			if (!combineItemInternal(plugin, item, inv, i)) {
-				continue;
-			}
-			groundItem.remove();
-			entity.getWorld().playSound(entity.getLocation(), Sound.ENTITY_ITEM_PICKUP, 0.1f, 1);
-			event.setCancelled(true);
-			break;
-		}
-		if (item.getAmount() == 0) {
-			return true;
-		}
-		for (int i = 0; i < inv.getStorageContents().length; i++) {
-			if (inv.getItem(i) != null) {
-				continue;
+		Inventory            inv         = ((InventoryHolder)entity).getInventory();
+		int                  storageSize = inv instanceof PlayerInventory ? 36 : inv.getSize();
+		InventoryTransaction transaction = new InventoryTransaction(plugin);
+		TransactionSlotArray slots       = transaction.getSlotArray(inv);
+		int                  id          = slots.register(item);
+		int                  amount      = item.getAmount();
+		int                  remaining   = StackAlgorithms.fillPartialStacks(slots, id, amount, 0, storageSize);
+		if (remaining > 0) {
+			int emptySlot = StackAlgorithms.findEmptySlot(slots, 0, storageSize, false);
+			if (emptySlot != -1) {
+				int placed = Math.min(remaining, slots.getMaxAmount(id));
+				slots.setSlot(emptySlot, id, placed);
+				remaining -= placed;
 			}
-			inv.setItem(i, item);
-			groundItem.remove();
-			entity.getWorld().playSound(entity.getLocation(), Sound.ENTITY_ITEM_PICKUP, 0.1f, 1);
-			event.setCancelled(true);
-			return true;
 		}
-		return false;
-	}
-	
-	/**
-	 * Emulates picking up an item that is regularly unstackable from the ground
-	 * and attempting to stack it with other items in an inventory.
-	 *
-	 * @param event      The cancellable event that this method has been called in
-	 * @param groundItem The item on the ground that this method is attempting to move to an inventory
-	 * @param inventory  The inventory that the item is being added to
-	 * @param item       The ItemStack contained inside of the groundItem
-	 */
-	public static void moveItemToInventory(SimpleStack plugin, Cancellable event, Item groundItem, Inventory inventory, ItemStack item) {
-		for (int i = 0; i < inventory.getSize(); i++) {
-			if (!combineItemInternal(plugin, item, inventory, i)) {
-				continue;
-			}
-			groundItem.remove();
-			event.setCancelled(true);
-			break;
+		if (remaining == amount) {
+			return false;
 		}
-		if (item.getAmount() == 0) {
-			return;
+		transaction.supply(item, amount - remaining);
+		if (!transaction.commit()) {
+			return false;
 		}
-		for (int i = 0; i < inventory.getSize(); i++) {
-			if (inventory.getItem(i) != null) {
-				continue;
-			}
-			inventory.setItem(i, item);
+		if (remaining == 0) {
 			groundItem.remove();
-			event.setCancelled(true);
-			break;
+		} else {
+			item.setAmount(remaining);
+			groundItem.setItemStack(item);
 		}
+		event.setCancelled(true);
+		plugin.getDeferredActionQueue().defer(entity, DeferredActionQueue.Kind.PICKUP_SOUND, () ->
+				entity.getWorld().playSound(entity.getLocation(), Sound.ENTITY_ITEM_PICKUP, 0.1f, 1));
+		return true;
 	}
 	
 	/**
 	 * Moving an item from one inventory to another inventory while manually finding
-	 * the item in the original inventory and removing it (Mostly for hoppers)
+	 * the item in the original inventory and removing it (Mostly for hoppers). <p>
+	 * Partial stacks in the destination are filled first and then empty slots, and both
+	 * inventories are changed in one transaction. Only the amount that actually fit into the
+	 * destination is removed from the source.
 	 *
 	 * @param item             The ItemStack being moved
 	 * @param fromInv          The inventory that the items are coming from (source)
 	 * @param toInv            The inventory that the items are moving to (destination)
 	 * @param amountBeingMoved The amount of items being moves to the toInv
+	 *
+	 * @return The amount of items that were moved
 	 */
-	public static void moveItemToInventory(SimpleStack plugin, ItemStack item, Inventory fromInv, Inventory toInv, int amountBeingMoved) {
-		int amountLeft = amountBeingMoved;
-		if (item.getType() == Material.AIR) {
-			return;
-		}
-		item = item.clone();
-		item.setAmount(amountBeingMoved);
-		ItemStack origItem = item.clone();
-		boolean   valid    = false;
-		for (int i = 0; i < fromInv.getSize(); ++i) {
-			ItemStack curItem = fromInv.getItem(i);
-			if (curItem == null) {
-				continue;
-			}
-			if (!origItem.isSimilar(curItem) && item.getAmount() >= origItem.getAmount()) {
-				continue;
-			}
-			valid = true;
-			break;
-		}
-		if (!valid) {
-			return;
+	public static int moveItemToInventory(SimpleStack plugin, ItemStack item, Inventory fromInv, Inventory toInv, int amountBeingMoved) {
+		if (item.getType() == Material.AIR || amountBeingMoved <= 0) {
+			return 0;
+		}
+		InventoryTransaction transaction = new InventoryTransaction(plugin);
+		TransactionSlotArray fromSlots   = transaction.getSlotArray(fromInv);
+		TransactionSlotArray toSlots     = transaction.getSlotArray(toInv);
+		int                  amountMoved = StackAlgorithms.transfer(fromSlots, fromSlots.register(item), toSlots, toSlots.register(item), amountBeingMoved);
+		return transaction.commit() ? amountMoved : 0;
+	}
+	
+	/**
+	 * Moving an item from one inventory to another inventory through the slot indexes of both
+	 * inventories. Indexes can be kept between moves so that repeated moves into the same
+	 * inventory don't have to scan it again.
+	 *
+	 * @param item             The ItemStack being moved
+	 * @param fromIndex        The slot index of the inventory that the items are coming from (source)
+	 * @param toIndex          The slot index of the inventory that the items are moving to (destination)
+	 * @param amountBeingMoved The amount of items being moves to the destination
+	 *
+	 * @return The amount of items that were moved
+	 */
+	public static int moveItemToInventory(SimpleStack plugin, ItemStack item, SlotIndex fromIndex, SlotIndex toIndex, int amountBeingMoved) {
+		if (item.getType() == Material.AIR || amountBeingMoved <= 0) {
+			return 0;
 		}
-		for (int i = 0; i < toInv.getSize(); ++i) {
-			if (!combineItemInternal(plugin, item, toInv, i)) {
-				continue;
-			}
-			amountLeft -= item.getAmount();
-			break;
+		int amountToMove = Math.min(amountBeingMoved, fromIndex.count(item, amountBeingMoved));
+		if (amountToMove == 0) {
+			return 0;
 		}
-		if (amountBeingMoved != 0) {
-			for (int i = 0; i < toInv.getSize(); i++) {
-				if (toInv.getItem(i) != null) {
-					continue;
-				}
-				toInv.setItem(i, item);
-				amountLeft = 0;
-				break;
-			}
-		}
-		removeItemFromInventory(origItem, fromInv, amountBeingMoved - amountLeft);
+		int amountMoved = toIndex.add(item, amountToMove);
+		fromIndex.remove(item, amountMoved);
+		return amountMoved;
 	}
 	
 	/**
@@ -156,20 +136,18 @@ public final class MoveUtils {
 		if (item.getType() == Material.AIR) {
 			return;
 		}
-		for (int i = 0; i < inv.getStorageContents().length; ++i) {
-			if (combineItemInternal(plugin, item, inv, i)) {
-				break;
-			}
-		}
+		InventoryTransaction transaction = new InventoryTransaction(plugin);
+		TransactionSlotArray slots       = transaction.getSlotArray(inv);
+		int                  storageSize = inv.getStorageContents().length;
+		transaction.supply(item, item.getAmount());
+		item.setAmount(StackAlgorithms.fillPartialStacks(slots, slots.register(item), item.getAmount(), 0, storageSize));
 		if (item.getAmount() != 0) {
-			for (int i = 0; i < inv.getStorageContents().length; ++i) {
-				if (inv.getItem(i) != null) {
-					continue;
-				}
-				inv.setItem(i, item);
-				break;
+			int emptySlot = StackAlgorithms.findEmptySlot(slots, 0, storageSize, false);
+			if (emptySlot != -1) {
+				transaction.setItem(inv, emptySlot, item);
 			}
 		}
+		transaction.commit();
 	}
 	
 	/**
@@ -181,6 +159,9 @@ public final class MoveUtils {
 	 * @param amount The amount of item to be deleted (If unsure, item.getAmount())
 	 */
 	public static void removeItemFromInventory(ItemStack item, Inventory inv, int amount) {
+		if (amount <= 0) {
+			return;
+		}
 		int newAmount = amount;
 		for (int i = 0; i < inv.getSize(); i++) {
 			ItemStack curItem = inv.getItem(i);
@@ -208,6 +189,7 @@ public final class MoveUtils {
 	 * Moves an item from one inventory to another (shift-click) while attempting
 	 * to combine unstackable items.
 	 *
+	 * @param transaction      The transaction that the move is run in
 	 * @param itemInSlot       Item to be moved (Clicked item)
 	 * @param clickedInventory The inventory that was clicked
 	 * @param slot             The slot that was clicked
@@ -218,17 +200,17 @@ public final class MoveUtils {
 	 *
 	 * @return If move was successful
 	 */
-	public static boolean moveItem(SimpleStack plugin, ItemStack itemInSlot, Inventory clickedInventory, int slot, Inventory invToMoveTo, int startingSlot, int endingSlot, boolean reverse) {
+	public static boolean moveItem(SimpleStack plugin, InventoryTransaction transaction, ItemStack itemInSlot, Inventory clickedInventory, int slot, Inventory invToMoveTo, int startingSlot, int endingSlot, boolean reverse) {
 		if (!reverse) {
-			if (moveItemToExistingStack(plugin, itemInSlot, invToMoveTo, startingSlot, endingSlot, false)) {
+			if (moveItemToExistingStack(plugin, transaction, itemInSlot, invToMoveTo, startingSlot, endingSlot, false)) {
 				return true;
 			}
-			return moveItemIgnoreStacks(itemInSlot, clickedInventory, slot, invToMoveTo, startingSlot, endingSlot, false);
+			return moveItemIgnoreStacks(plugin, transaction, itemInSlot, clickedInventory, slot, invToMoveTo, startingSlot, endingSlot, false);
 		} else {
-			if (moveItemToExistingStack(plugin, itemInSlot, invToMoveTo, startingSlot, endingSlot, true)) {
+			if (moveItemToExistingStack(plugin, transaction, itemInSlot, invToMoveTo, startingSlot, endingSlot, true)) {
 				return true;
 			}
-			return moveItemIgnoreStacks(itemInSlot, clickedInventory, slot, invToMoveTo, startingSlot, endingSlot, true);
+			return moveItemIgnoreStacks(plugin, transaction, itemInSlot, clickedInventory, slot, invToMoveTo, startingSlot, endingSlot, true);
 		}
 	}
 	
@@ -236,6 +218,7 @@ public final class MoveUtils {
 	 * Moves an item from one inventory to the player inventory (shift-click) while attempting
 	 * to combine unstackable items and reversing the order of the hotbar.
 	 *
+	 * @param transaction      The transaction that the move is run in
 	 * @param itemInSlot       Item to be moved (Clicked item)
 	 * @param clickedInventory The inventory that was clicked
 	 * @param slot             The slot that was clicked
@@ -243,23 +226,24 @@ public final class MoveUtils {
 	 *
 	 * @return If move was successful
 	 */
-	public static boolean moveItemReverseHotbar(SimpleStack plugin, ItemStack itemInSlot, Inventory clickedInventory, int slot, Inventory invToMoveTo) {
-		if (moveItemToExistingStack(plugin, itemInSlot, invToMoveTo, 0, 9, true)) {
+	public static boolean moveItemReverseHotbar(SimpleStack plugin, InventoryTransaction transaction, ItemStack itemInSlot, Inventory clickedInventory, int slot, Inventory invToMoveTo) {
+		if (moveItemToExistingStack(plugin, transaction, itemInSlot, invToMoveTo, 0, 9, true)) {
 			return true;
 		}
-		if (moveItemToExistingStack(plugin, itemInSlot, invToMoveTo, 9, 36, false)) {
+		if (moveItemToExistingStack(plugin, transaction, itemInSlot, invToMoveTo, 9, 36, false)) {
 			return true;
 		}
-		if (moveItemIgnoreStacks(itemInSlot, clickedInventory, slot, invToMoveTo, 0, 9, true)) {
+		if (moveItemIgnoreStacks(plugin, transaction, itemInSlot, clickedInventory, slot, invToMoveTo, 0, 9, true)) {
 			return true;
 		}
-		return moveItemIgnoreStacks(itemInSlot, clickedInventory, slot, invToMoveTo, 9, 36, false);
+		return moveItemIgnoreStacks(plugin, transaction, itemInSlot, clickedInventory, slot, invToMoveTo, 9, 36, false);
 	}
 	
 	/**
 	 * Attempt to move an item to a new slot in an inventory while disregarding whether it can stack with
 	 * other ItemStacks or not.
 	 *
+	 * @param transaction      The transaction that the move is run in
 	 * @param itemInSlot       The item being moved (Clicked item)
 	 * @param clickedInventory The inventory that was clicked
 	 * @param slot             The slot that was clicked
@@ -270,27 +254,15 @@ public final class MoveUtils {
 	 *
 	 * @return If move was successful
 	 */
-	public static boolean moveItemIgnoreStacks(ItemStack itemInSlot, Inventory clickedInventory, int slot, Inventory invToMoveTo, int startingSlot, int endingSlot, boolean reverse) {
-		if (!reverse) {
-			for (int i = startingSlot; i < endingSlot; i++) {
-				if (invToMoveTo.getItem(i) != null) {
-					continue;
-				}
-				invToMoveTo.setItem(i, itemInSlot);
-				clickedInventory.setItem(slot, null);
-				return true;
-			}
-		} else {
-			for (int i = endingSlot - 1; i >= startingSlot; i--) {
-				if (invToMoveTo.getItem(i) != null) {
-					continue;
-				}
-				invToMoveTo.setItem(i, itemInSlot);
-				clickedInventory.setItem(slot, null);
-				return true;
-			}
+	public static boolean moveItemIgnoreStacks(SimpleStack plugin, InventoryTransaction transaction, ItemStack itemInSlot, Inventory clickedInventory, int slot, Inventory invToMoveTo, int startingSlot, int endingSlot, boolean reverse) {
+		TransactionSlotArray slots     = transaction.getSlotArray(invToMoveTo);
+		int                  emptySlot = StackAlgorithms.findEmptySlot(slots, startingSlot, endingSlot, reverse);
+		if (emptySlot == -1) {
+			return false;
 		}
-		return false;
+		transaction.setItem(invToMoveTo, emptySlot, itemInSlot);
+		transaction.setItem(clickedInventory, slot, null);
+		return true;
 	}
 	
 	/**
@@ -298,6 +270,7 @@ public final class MoveUtils {
 	 * blank space with no items occupying them. This method will only attempt to combine
 	 * the itemInSlot with any other non-null items in the invToMoveTo.
 	 *
+	 * @param transaction  The transaction that the move is run in
 	 * @param itemInSlot   The item being moved (Clicked item)
 	 * @param invToMoveTo  The inventory that the item should be moved to
 	 * @param startingSlot The slot that the algorithm will begin attempting a move at
@@ -306,20 +279,9 @@ public final class MoveUtils {
 	 *
 	 * @return If move was successful
 	 */
-	public static boolean moveItemToExistingStack(SimpleStack plugin, ItemStack itemInSlot, Inventory invToMoveTo, int startingSlot, int endingSlot, boolean reverse) {
-		if (!reverse) {
-			for (int i = startingSlot; i < endingSlot; i++) {
-				if (combineItemInternal(plugin, itemInSlot, invToMoveTo, i)) {
-					break;
-				}
-			}
-		} else {
-			for (int i = startingSlot; i < endingSlot; i++) {
-				if (combineItemInternal(plugin, itemInSlot, invToMoveTo, i)) {
-					break;
-				}
-			}
-		}
+	public static boolean moveItemToExistingStack(SimpleStack plugin, InventoryTransaction transaction, ItemStack itemInSlot, Inventory invToMoveTo, int startingSlot, int endingSlot, boolean reverse) {
+		TransactionSlotArray slots = transaction.getSlotArray(invToMoveTo);
+		itemInSlot.setAmount(StackAlgorithms.fillPartialStacks(slots, slots.register(itemInSlot), itemInSlot.getAmount(), startingSlot, endingSlot));
 		return itemInSlot.getAmount() == 0;
 	}
 	
@@ -327,23 +289,45 @@ public final class MoveUtils {
 	 * Move an item into the player's inventory in the priority that slots 9 to 36 (not the hotbar)
 	 * are attempted to be moved into first and then the hotbar afterwards.
 	 *
+	 * @param transaction      The transaction that the move is run in
 	 * @param itemInSlot       The item being moved (Clicked item)
 	 * @param clickedInventory The inventory that was clicked
 	 * @param slot             The slot that was clicked
 	 * @param invToMoveTo      The inventory that the item should be moved to
 	 */
-	public static void moveItemPlayerOrder(SimpleStack plugin, ItemStack itemInSlot, Inventory clickedInventory, int slot, Inventory invToMoveTo) {
-		if (moveItemToExistingStack(plugin, itemInSlot, invToMoveTo, 0, 9, false)) {
+	public static void moveItemPlayerOrder(SimpleStack plugin, InventoryTransaction transaction, ItemStack itemInSlot, Inventory clickedInventory, int slot, Inventory invToMoveTo) {
+		if (moveItemToExistingStack(plugin, transaction, itemInSlot, invToMoveTo, 0, 9, false)) {
 			return;
 		}
-		if (moveItemToExistingStack(plugin, itemInSlot, invToMoveTo, 9, 36, false)) {
+		if (moveItemToExistingStack(plugin, transaction, itemInSlot, invToMoveTo, 9, 36, false)) {
 			return;
 		}
-		if (!moveItem(plugin, itemInSlot, clickedInventory, slot, invToMoveTo, 9, 36, false)) {
-			moveItem(plugin, itemInSlot, clickedInventory, slot, invToMoveTo, 0, 9, false);
+		if (!moveItem(plugin, transaction, itemInSlot, clickedInventory, slot, invToMoveTo, 9, 36, false)) {
+			moveItem(plugin, transaction, itemInSlot, clickedInventory, slot, invToMoveTo, 0, 9, false);
 		}
 	}
 	
+	/**
+	 * Add an amount of an item that comes from outside of the inventory to the player's inventory
+	 * in player order: existing stacks in the hotbar and then the main inventory, then empty slots
+	 * in the main inventory and then the hotbar.
+	 *
+	 * @param transaction The transaction that the item is added in
+	 * @param item        The item to add, its amount is ignored
+	 * @param amount      The amount of the item to add
+	 * @param invToMoveTo The player's inventory
+	 *
+	 * @return The amount that didn't fit
+	 */
+	public static int addItemPlayerOrder(SimpleStack plugin, InventoryTransaction transaction, ItemStack item, int amount, Inventory invToMoveTo) {
+		TransactionSlotArray slots = transaction.getSlotArray(invToMoveTo);
+		int                  id    = slots.register(item);
+		amount = StackAlgorithms.fillPartialStacks(slots, id, amount, 0, 9);
+		amount = StackAlgorithms.fillPartialStacks(slots, id, amount, 9, 36);
+		amount = StackAlgorithms.fillEmptySlots(slots, id, amount, 9, 36);
+		return StackAlgorithms.fillEmptySlots(slots, id, amount, 0, 9);
+	}
+	
 	/**
 	 * Attempt to combine an item with another item in a specific slot of an inventory.
 	 * This method will only be successful if the item slot in the inventory is not null
@@ -356,19 +340,26 @@ public final class MoveUtils {
 	 * @return If method was successful
 	 */
 	public static boolean combineItemInternal(SimpleStack plugin, ItemStack itemInSlot, Inventory inv, int slot) {
-		ItemStack itemStack = inv.getItem(slot);
+		return combineItemInternal(plugin, itemInSlot, inv.getItem(slot));
+	}
+	
+	/**
+	 * Attempt to combine an item with another item. This method will only be successful
+	 * if the other item is not null and both items are similar.
+	 *
+	 * @param itemInSlot The item being moved (Clicked item)
+	 * @param itemStack  The item to combine the itemInSlot into, modified directly
+	 *
+	 * @return If method was successful
+	 */
+	public static boolean combineItemInternal(SimpleStack plugin, ItemStack itemInSlot, ItemStack itemStack) {
 		if (itemStack == null || !itemInSlot.isSimilar(itemStack)) {
 			return false;
 		}
-		int newAmount        = itemStack.getAmount() + itemInSlot.getAmount();
-		int extraAmount      = 0;
-		int maxAmountInStack = StackUtils.getMaxAmount(plugin, itemStack);
-		if (newAmount > maxAmountInStack) {
-			extraAmount = (newAmount - maxAmountInStack);
-			newAmount = maxAmountInStack;
-		}
+		int totalAmount = itemStack.getAmount() + itemInSlot.getAmount();
+		int newAmount   = StackAlgorithms.merge(itemStack.getAmount(), itemInSlot.getAmount(), StackUtils.getMaxAmount(plugin, itemStack));
 		itemStack.setAmount(newAmount);
-		itemInSlot.setAmount(extraAmount);
+		itemInSlot.setAmount(totalAmount - newAmount);
 		return itemInSlot.getAmount() == 0;
 	}
 	
@@ -405,7 +396,7 @@ public final class MoveUtils {
 	/**
 	 * Moves an entire inventory into the player's inventory.
 	 * This method is most commonly called when a crafting table / other temporary storage
-	 * inventory is closed.
+	 * inventory is closed. Both inventories are changed in one transaction.
 	 *
 	 * @param invToMove Inventory that will be moved into the player's inventory
 	 * @param player    The player that will receive the items of the invToMove
@@ -416,8 +407,9 @@ public final class MoveUtils {
 		if (invToMove instanceof CraftingInventory) {
 			startingSlot = 1;
 		}
+		InventoryTransaction transaction = new InventoryTransaction(plugin);
 		for (int i = startingSlot; i < invToMove.getSize(); i++) {
-			ItemStack stack = invToMove.getItem(i);
+			ItemStack stack = transaction.getItem(invToMove, i);
 			if (stack == null) {
 				continue;
 			}
@@ -427,14 +419,18 @@ public final class MoveUtils {
 				continue;
 			}
 			
-			moveItem(plugin, stack, invToMove, i, playerInv, 0, 36, false);
-			player.updateInventory();
+			moveItem(plugin, transaction, stack, invToMove, i, playerInv, 0, 36, false);
 		}
+		transaction.commit();
+		plugin.getInventoryUpdateQueue().requestUpdate(player);
 	}
 	
 	/**
 	 * Emulates dragging items in an inventory in survival mode. Uses a different algorithm because of the
-	 * way that items have to combine together, still looks like the vanilla algorithm though.
+	 * way that items have to combine together, still looks like the vanilla algorithm though. <p>
+	 * The dragged slots are read into an <tt>InventoryTransaction</tt>, the cursor is distributed over
+	 * their amounts and every slot is written back in one commit. The items that left the cursor are
+	 * supplied to the transaction, so the cursor is only changed if the commit succeeded.
 	 *
 	 * @param event         The InventoryDragEvent that this method is being run from
 	 * @param inventoryView The inventoryView of the player
@@ -442,56 +438,45 @@ public final class MoveUtils {
 	 * @param cursor        The cursor ItemStack for modification
 	 */
 	public static void dragItemsSurvival(SimpleStack plugin, InventoryDragEvent event, InventoryView inventoryView, Player player, ItemStack cursor) {
-		Integer[]   slots    = event.getNewItems().keySet().toArray(new Integer[0]);
-		ItemStack[] newItems = event.getNewItems().values().toArray(new ItemStack[0]);
+		Map<Integer, ItemStack> newItems = event.getNewItems();
+		int[]                   slots    = new int[newItems.size()];
+		int                     index    = 0;
+		for (int slot : newItems.keySet()) {
+			slots[index++] = slot;
+		}
+		
+		InventoryTransaction transaction = new InventoryTransaction(plugin);
+		int[]                amounts     = new int[slots.length];
 		for (int i = 0; i < slots.length; i++) {
-			ItemStack oldItem = inventoryView.getItem(slots[i]);
-			int       amount;
-			if (oldItem == null) {
-				amount = 0;
-			} else {
-				amount = oldItem.getAmount();
-			}
+			ItemStack oldItem = transaction.getItem(inventoryView.getInventory(slots[i]), inventoryView.convertSlot(slots[i]));
 			if (oldItem != null && cursor.isSimilar(oldItem)) {
-				newItems[i].setAmount(amount);
-			} else {
-				newItems[i].setAmount(0);
+				amounts[i] = oldItem.getAmount();
 			}
 		}
+		int cursorAmount = StackAlgorithms.distribute(amounts, cursor.getAmount(), StackUtils.getMaxAmount(plugin, cursor));
 		
-		int    amountOfItems    = newItems.length;
-		int    cursorSize       = cursor.getAmount();
-		double amountPerItemRaw = (double)cursorSize / (double)amountOfItems;
-		int    amountPerItem    = (int)Math.floor(amountPerItemRaw);
-		int    totalAmount      = amountPerItem * amountOfItems;
-		int    amountLeft       = cursorSize - totalAmount;
-		
-		int newExtraAmount = 0;
-		
-		for (int i = 0; i < newItems.length; i++) {
-			ItemStack item             = newItems[i];
-			int       newAmount        = amountPerItem + item.getAmount();
-			int       extraAmount      = 0;
-			int       maxAmountInStack = StackUtils.getMaxAmount(plugin, item);
-			if (newAmount > maxAmountInStack) {
-				extraAmount = newAmount % maxAmountInStack;
-				newAmount = maxAmountInStack;
+		ItemStack newItem = cursor.clone();
+		for (int i = 0; i < slots.length; i++) {
+			Inventory inventory = inventoryView.getInventory(slots[i]);
+			int       slot      = inventoryView.convertSlot(slots[i]);
+			ItemStack oldItem   = transaction.getItem(inventory, slot);
+			if (oldItem != null && cursor.isSimilar(oldItem)) {
+				oldItem.setAmount(amounts[i]);
+				continue;
 			}
-			item.setAmount(newAmount);
-			newExtraAmount += extraAmount;
-			inventoryView.setItem(slots[i], item);
+			newItem.setAmount(amounts[i]);
+			transaction.setItem(inventory, slot, newItem);
+		}
+		transaction.supply(cursor, cursor.getAmount() - cursorAmount);
+		if (!transaction.commit()) {
+			return;
 		}
 		
-		int finalNewExtraAmount = newExtraAmount;
-		new BukkitRunnable() {
-			
-			@Override
-			public void run() {
-				ItemStack newCursor = cursor.clone();
-				newCursor.setAmount(amountLeft + finalNewExtraAmount);
-				player.setItemOnCursor(newCursor);
-			}
-		}.runTask(plugin);
+		plugin.getDeferredActionQueue().defer(player, DeferredActionQueue.Kind.DRAG_CURSOR, () -> {
+			ItemStack newCursor = cursor.clone();
+			newCursor.setAmount(cursorAmount);
+			player.setItemOnCursor(newCursor);
+		});
 	}
 	
 	/**
@@ -527,14 +512,9 @@ public final class MoveUtils {
 	 * @param targetStack The target stack (result stack)
 	 */
 	public static void mergeItems(SimpleStack plugin, ItemStack inputStack, ItemStack targetStack) {
-		int maxAmountInStack = StackUtils.getMaxAmount(plugin, inputStack);
-		int newAmount        = inputStack.getAmount() + targetStack.getAmount();
-		int extraAmount      = 0;
-		if (newAmount > maxAmountInStack) {
-			extraAmount = (newAmount - maxAmountInStack);
-			newAmount = maxAmountInStack;
-		}
-		inputStack.setAmount(extraAmount);
+		int totalAmount = inputStack.getAmount() + targetStack.getAmount();
+		int newAmount   = StackAlgorithms.merge(targetStack.getAmount(), inputStack.getAmount(), StackUtils.getMaxAmount(plugin, inputStack));
+		inputStack.setAmount(totalAmount - newAmount);
 		targetStack.setAmount(newAmount);
 	}
 	
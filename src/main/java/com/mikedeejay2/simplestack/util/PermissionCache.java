@@ -0,0 +1,83 @@
+package com.mikedeejay2.simplestack.util;
+
+import com.mikedeejay2.simplestack.SimpleStack;
+import org.bukkit.entity.Player;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Cache of whether players have the <tt>simplestack.use</tt> permission. Resolving a permission can
+ * walk through groups and inheritance of a permission plugin, so the verdict is resolved once per player
+ * and reused by every event of that player. A verdict is forgotten when the player joins, quits or changes
+ * worlds, when a <tt>PermissionRefreshEvent</tt> is called, and otherwise expires after a while so that
+ * permission changes made without an event are still picked up.
+ *
+ * @author Mikedeejay2
+ */
+public class PermissionCache {
+	
+	// How long a verdict is kept before the permission is resolved again
+	private static final long EXPIRY_NANOS = 10_000_000_000L;
+	
+	private final SimpleStack              plugin;
+	// The cached verdict of every player by their UUID
+	private final Map<UUID, CachedVerdict> verdicts;
+	
+	public PermissionCache(SimpleStack plugin) {
+		this.plugin = plugin;
+		this.verdicts = new HashMap<>();
+	}
+	
+	/**
+	 * Return whether a player has the <tt>simplestack.use</tt> permission, resolving it
+	 * only if there is no verdict of the player or if the verdict has expired
+	 *
+	 * @param player The player to check
+	 *
+	 * @return Whether the player has the permission
+	 */
+	public boolean hasPermission(Player player) {
+		long          now     = System.nanoTime();
+		CachedVerdict verdict = verdicts.get(player.getUniqueId());
+		if (verdict == null) {
+			verdict = new CachedVerdict();
+			verdicts.put(player.getUniqueId(), verdict);
+		} else if (now - verdict.resolvedAt < EXPIRY_NANOS) {
+			return verdict.permitted;
+		}
+		verdict.permitted = player.hasPermission(plugin.getPermission());
+		verdict.resolvedAt = now;
+		return verdict.permitted;
+	}
+	
+	/**
+	 * Forget the verdict of a player
+	 *
+	 * @param player The player to forget
+	 */
+	public void invalidate(Player player) {
+		verdicts.remove(player.getUniqueId());
+	}
+	
+	/**
+	 * Forget the verdict of every player
+	 */
+	public void invalidateAll() {
+		verdicts.clear();
+	}
+	
+	/**
+	 * The verdict of one player and when it was resolved
+	 */
+	private static final class CachedVerdict {
+		
+		// Whether the player has the permission
+		private boolean permitted;
+		// The System.nanoTime() of when the permission was resolved
+		private long    resolvedAt;
+		
+	}
+	
+}
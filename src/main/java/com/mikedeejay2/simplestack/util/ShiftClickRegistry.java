@@ -0,0 +1,183 @@
+package com.mikedeejay2.simplestack.util;
+
+import org.bukkit.Material;
+import org.bukkit.event.inventory.InventoryType;
+import org.bukkit.inventory.AbstractHorseInventory;
+import org.bukkit.inventory.HorseInventory;
+import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.InventoryHolder;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Registry of the <tt>ShiftClickStrategy</tt> of every kind of inventory. Strategies are
+ * registered per <tt>InventoryType</tt>, and other plugins can register strategies for the
+ * holder class of their custom GUIs, which take priority over the strategy of the type.
+ *
+ * @author Mikedeejay2
+ */
+public final class ShiftClickRegistry {
+	
+	// The strategy of an inventory that accepts any item in any slot
+	private static final ShiftClickStrategy DEFAULT = ShiftClickStrategy.builder()
+			.rule(ShiftClickRule.any(0, Integer.MAX_VALUE))
+			.build();
+	
+	// The strategy of every inventory type by ordinal
+	private final ShiftClickStrategy[]                                      strategies;
+	// The strategies of custom GUIs by the class of their holder
+	private final Map<Class<? extends InventoryHolder>, ShiftClickStrategy> holderStrategies;
+	// The strategies of horses, which Bukkit reports as chests
+	private final ShiftClickStrategy                                        horseStrategy;
+	private final ShiftClickStrategy                                        chestedHorseStrategy;
+	private final ShiftClickStrategy                                        otherHorseStrategy;
+	
+	public ShiftClickRegistry() {
+		this.strategies = new ShiftClickStrategy[InventoryType.values().length];
+		this.holderStrategies = new HashMap<>();
+		ShiftClickRule saddle = ShiftClickRule.materials(0, 1, Material.SADDLE);
+		this.horseStrategy = ShiftClickStrategy.builder()
+				.rule(saddle)
+				.rule(ShiftClickRule.traits(MaterialTraits.HORSE_ARMOR, 1, 2))
+				.build();
+		this.chestedHorseStrategy = ShiftClickStrategy.builder()
+				.rule(saddle)
+				.rule(ShiftClickRule.any(2, Integer.MAX_VALUE))
+				.build();
+		this.otherHorseStrategy = ShiftClickStrategy.builder()
+				.rule(saddle)
+				.build();
+		registerDefaults();
+	}
+	
+	/**
+	 * Register the strategies of the vanilla inventories
+	 */
+	private void registerDefaults() {
+		ShiftClickStrategy crafting = ShiftClickStrategy.builder()
+				.rule(ShiftClickRule.any(1, 10))
+				.resultSlots(0)
+				.playerOrder()
+				.build();
+		register(InventoryType.WORKBENCH, crafting);
+		register(InventoryType.CRAFTING, crafting);
+		
+		ShiftClickStrategy furnace = ShiftClickStrategy.builder()
+				.rule(ShiftClickRule.traits(MaterialTraits.FUEL, 0, 2).reverse())
+				.rule(ShiftClickRule.any(0, 2))
+				.resultSlots(2)
+				.playerOrder()
+				.build();
+		register(InventoryType.FURNACE, furnace);
+		register(InventoryType.BLAST_FURNACE, furnace);
+		register(InventoryType.SMOKER, furnace);
+		
+		ShiftClickStrategy anvil = ShiftClickStrategy.builder()
+				.rule(ShiftClickRule.any(0, 2))
+				.resultSlots(2)
+				.playerOrder()
+				.build();
+		register(InventoryType.ANVIL, anvil);
+		register(InventoryType.SMITHING, anvil);
+		
+		register(InventoryType.GRINDSTONE, ShiftClickStrategy.builder()
+				.rule(ShiftClickRule.any(0, 2))
+				.resultSlots(2)
+				.consumedSlots(0, 1)
+				.playerOrder()
+				.build());
+		register(InventoryType.STONECUTTER, ShiftClickStrategy.builder()
+				.rule(ShiftClickRule.any(0, 1))
+				.resultSlots(1)
+				.build());
+		register(InventoryType.ENCHANTING, ShiftClickStrategy.builder()
+				.rule(ShiftClickRule.any(0, 1).single())
+				.resultSlots(0)
+				.build());
+		register(InventoryType.LOOM, ShiftClickStrategy.builder()
+				.rule(ShiftClickRule.traits(MaterialTraits.BANNER, 0, 1))
+				.rule(ShiftClickRule.traits(MaterialTraits.PATTERN, 2, 3))
+				.rule(ShiftClickRule.traits(MaterialTraits.DYE, 1, 2))
+				.resultSlots(3)
+				.build());
+		register(InventoryType.CARTOGRAPHY, ShiftClickStrategy.builder()
+				.rule(ShiftClickRule.materials(0, 1, Material.FILLED_MAP))
+				.rule(ShiftClickRule.materials(1, 2, Material.PAPER))
+				.resultSlots(2)
+				.build());
+		register(InventoryType.BREWING, ShiftClickStrategy.builder()
+				.rule(ShiftClickRule.traits(MaterialTraits.POTION, 0, 3).single())
+				.rule(ShiftClickRule.materials(3, 5, Material.BLAZE_POWDER).reverse())
+				.rule(ShiftClickRule.any(3, 4))
+				.resultSlots(0, 1, 2)
+				.build());
+		register(InventoryType.BEACON, ShiftClickStrategy.builder()
+				.rule(ShiftClickRule.traits(MaterialTraits.BEACON_PAYMENT, 0, 1).single().fallback())
+				.build());
+		register(InventoryType.SHULKER_BOX, ShiftClickStrategy.builder()
+				.rule(ShiftClickRule.traits(MaterialTraits.SHULKER_BOX, 0, Integer.MAX_VALUE).reject())
+				.rule(ShiftClickRule.any(0, Integer.MAX_VALUE))
+				.build());
+	}
+	
+	/**
+	 * Register the strategy of an inventory type, replacing the current strategy of the type
+	 *
+	 * @param type     The inventory type
+	 * @param strategy The strategy of the type
+	 */
+	public void register(InventoryType type, ShiftClickStrategy strategy) {
+		strategies[type.ordinal()] = strategy;
+	}
+	
+	/**
+	 * Register the strategy of a custom GUI by the class of its <tt>InventoryHolder</tt>.
+	 * Only inventories whose holder is exactly of this class use the strategy.
+	 *
+	 * @param holderClass The class of the holder of the GUI
+	 * @param strategy    The strategy of the GUI
+	 */
+	public void register(Class<? extends InventoryHolder> holderClass, ShiftClickStrategy strategy) {
+		holderStrategies.put(holderClass, strategy);
+	}
+	
+	/**
+	 * Remove the strategy of a custom GUI
+	 *
+	 * @param holderClass The class of the holder of the GUI
+	 */
+	public void unregister(Class<? extends InventoryHolder> holderClass) {
+		holderStrategies.remove(holderClass);
+	}
+	
+	/**
+	 * Get the strategy of an inventory. The holder of the inventory is only looked up
+	 * if any custom GUI has been registered, since getting the holder of a block inventory
+	 * creates a snapshot of the block.
+	 *
+	 * @param inventory The inventory
+	 *
+	 * @return The strategy of the inventory
+	 */
+	public ShiftClickStrategy get(Inventory inventory) {
+		if (!holderStrategies.isEmpty()) {
+			InventoryHolder holder = inventory.getHolder();
+			if (holder != null) {
+				ShiftClickStrategy strategy = holderStrategies.get(holder.getClass());
+				if (strategy != null) {
+					return strategy;
+				}
+			}
+		}
+		if (inventory instanceof AbstractHorseInventory) {
+			if (inventory instanceof HorseInventory) {
+				return horseStrategy;
+			}
+			return inventory.getSize() > 3 ? chestedHorseStrategy : otherHorseStrategy;
+		}
+		ShiftClickStrategy strategy = strategies[inventory.getType().ordinal()];
+		return strategy != null ? strategy : DEFAULT;
+	}
+	
+}
@@ -0,0 +1,163 @@
+package com.mikedeejay2.simplestack.util;
+
+import org.bukkit.Material;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * A rule of a <tt>ShiftClickStrategy</tt>. The rule accepts items by their traits (see <tt>MaterialTraits</tt>)
+ * or by their material and decides which range of slots accepted items are shift clicked into.
+ *
+ * @author Mikedeejay2
+ */
+public final class ShiftClickRule {
+	
+	/**
+	 * What a rule does with the items that it accepts
+	 */
+	public enum Action {
+		// Stack the items into the range, filling existing stacks first and then empty slots
+		MOVE,
+		// Put a single item into every empty slot of the range
+		MOVE_SINGLE,
+		// Don't move the items into the inventory, they are moved inside of the player's inventory instead
+		REJECT
+	}
+	
+	// The traits that the rule accepts, combined with |
+	private final int           traits;
+	// The materials that the rule accepts
+	private final Set<Material> materials;
+	// The first slot of the range
+	private final int           startSlot;
+	// The slot after the last slot of the range, clamped to the size of the inventory
+	private final int           endSlot;
+	// Whether the range is filled from its end
+	private final boolean       reverse;
+	// What the rule does with the items
+	private final Action        action;
+	// Whether items are moved inside of the player's inventory when nothing could be moved into the range
+	private final boolean       fallback;
+	
+	private ShiftClickRule(int traits, Set<Material> materials, int startSlot, int endSlot, boolean reverse, Action action, boolean fallback) {
+		this.traits = traits;
+		this.materials = materials;
+		this.startSlot = startSlot;
+		this.endSlot = endSlot;
+		this.reverse = reverse;
+		this.action = action;
+		this.fallback = fallback;
+	}
+	
+	/**
+	 * Create a rule that accepts every item
+	 *
+	 * @param startSlot The first slot of the range
+	 * @param endSlot   The slot after the last slot of the range
+	 *
+	 * @return The new rule
+	 */
+	public static ShiftClickRule any(int startSlot, int endSlot) {
+		return new ShiftClickRule(0, null, startSlot, endSlot, false, Action.MOVE, false);
+	}
+	
+	/**
+	 * Create a rule that accepts items with any of the traits specified
+	 *
+	 * @param traits    The traits to accept, combined with <tt>|</tt>
+	 * @param startSlot The first slot of the range
+	 * @param endSlot   The slot after the last slot of the range
+	 *
+	 * @return The new rule
+	 */
+	public static ShiftClickRule traits(int traits, int startSlot, int endSlot) {
+		return new ShiftClickRule(traits, EnumSet.noneOf(Material.class), startSlot, endSlot, false, Action.MOVE, false);
+	}
+	
+	/**
+	 * Create a rule that accepts items of the materials specified
+	 *
+	 * @param startSlot The first slot of the range
+	 * @param endSlot   The slot after the last slot of the range
+	 * @param material  The first material to accept
+	 * @param materials Any other materials to accept
+	 *
+	 * @return The new rule
+	 */
+	public static ShiftClickRule materials(int startSlot, int endSlot, Material material, Material... materials) {
+		return new ShiftClickRule(0, EnumSet.of(material, materials), startSlot, endSlot, false, Action.MOVE, false);
+	}
+	
+	/**
+	 * Get a copy of this rule that fills its range from the end
+	 *
+	 * @return The reversed rule
+	 */
+	public ShiftClickRule reverse() {
+		return new ShiftClickRule(traits, materials, startSlot, endSlot, true, action, fallback);
+	}
+	
+	/**
+	 * Get a copy of this rule that puts a single item into every empty slot of its range
+	 *
+	 * @return The new rule
+	 */
+	public ShiftClickRule single() {
+		return new ShiftClickRule(traits, materials, startSlot, endSlot, reverse, Action.MOVE_SINGLE, fallback);
+	}
+	
+	/**
+	 * Get a copy of this rule that rejects the items that it accepts
+	 *
+	 * @return The new rule
+	 */
+	public ShiftClickRule reject() {
+		return new ShiftClickRule(traits, materials, startSlot, endSlot, reverse, Action.REJECT, fallback);
+	}
+	
+	/**
+	 * Get a copy of this rule that moves items inside of the player's inventory when nothing
+	 * could be moved into its range
+	 *
+	 * @return The new rule
+	 */
+	public ShiftClickRule fallback() {
+		return new ShiftClickRule(traits, materials, startSlot, endSlot, reverse, action, true);
+	}
+	
+	/**
+	 * Return whether this rule accepts a material
+	 *
+	 * @param material The material to check
+	 *
+	 * @return Whether the material is accepted
+	 */
+	public boolean accepts(Material material) {
+		if (materials == null) {
+			return true;
+		}
+		return materials.contains(material) || MaterialTraits.is(material, traits);
+	}
+	
+	public int getStartSlot() {
+		return startSlot;
+	}
+	
+	public int getEndSlot() {
+		return endSlot;
+	}
+	
+	public boolean isReverse() {
+		return reverse;
+	}
+	
+	public Action getAction() {
+		return action;
+	}
+	
+	public boolean shouldFallback() {
+		return fallback;
+	}
+	
+}
@@ -0,0 +1,194 @@
+package com.mikedeejay2.simplestack.util;
+
+import org.bukkit.Material;
+import org.bukkit.inventory.Inventory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * How a kind of inventory behaves when items are shift clicked into it or out of it.
+ * <p>
+ * Items shift clicked into the inventory are moved by the first <tt>ShiftClickRule</tt> that accepts
+ * their material. The rule of every material is looked up once when the strategy is built, so
+ * a shift click only costs an array lookup to find its rule. Items that no rule accepts are moved
+ * inside of the player's inventory instead.
+ * <p>
+ * Items shift clicked out of the inventory into the player's inventory are moved in player order
+ * (main inventory before the hotbar) if the strategy says so, and items shift clicked out of a
+ * result slot are moved into the hotbar from its end first.
+ * <p>
+ * Strategies are immutable, use <tt>ShiftClickStrategy.builder()</tt> to create one.
+ *
+ * @author Mikedeejay2
+ */
+public final class ShiftClickStrategy {
+	
+	// The id of a material that no rule accepts
+	private static final byte NO_RULE = -1;
+	
+	// The rules of the strategy, in order of priority
+	private final ShiftClickRule[] rules;
+	// The index of the rule of every material by ordinal
+	private final byte[]           ruleByMaterial;
+	// Whether items are moved out of the inventory in player order
+	private final boolean          playerOrder;
+	// The slots that hold the result of the inventory
+	private final BitSet           resultSlots;
+	// The slots that are used up once the result has been taken
+	private final BitSet           consumedSlots;
+	
+	private ShiftClickStrategy(Builder builder) {
+		this.rules = builder.rules.toArray(new ShiftClickRule[0]);
+		this.playerOrder = builder.playerOrder;
+		this.resultSlots = (BitSet)builder.resultSlots.clone();
+		this.consumedSlots = (BitSet)builder.consumedSlots.clone();
+		
+		Material[] materials = Material.values();
+		this.ruleByMaterial = new byte[materials.length];
+		Arrays.fill(ruleByMaterial, NO_RULE);
+		for (Material material : materials) {
+			for (int i = 0; i < rules.length; ++i) {
+				if (rules[i].accepts(material)) {
+					ruleByMaterial[material.ordinal()] = (byte)i;
+					break;
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Create a new builder of a strategy
+	 *
+	 * @return The new builder
+	 */
+	public static Builder builder() {
+		return new Builder();
+	}
+	
+	/**
+	 * Get the rule that moves a material into the inventory
+	 *
+	 * @param material The material being shift clicked
+	 *
+	 * @return The rule, null if no rule accepts the material
+	 */
+	public ShiftClickRule getRule(Material material) {
+		byte rule = ruleByMaterial[material.ordinal()];
+		return rule == NO_RULE ? null : rules[rule];
+	}
+	
+	/**
+	 * Return whether items are moved out of the inventory in player order
+	 *
+	 * @return Whether player order is used
+	 */
+	public boolean usesPlayerOrder() {
+		return playerOrder;
+	}
+	
+	/**
+	 * Return whether a slot holds the result of the inventory
+	 *
+	 * @param slot The slot to check
+	 *
+	 * @return Whether the slot is a result slot
+	 */
+	public boolean isResultSlot(int slot) {
+		return slot >= 0 && resultSlots.get(slot);
+	}
+	
+	/**
+	 * Empty the slots that are used up once the result has been taken
+	 *
+	 * @param transaction The transaction that the result was taken in
+	 * @param inventory   The inventory of the result
+	 */
+	public void consume(InventoryTransaction transaction, Inventory inventory) {
+		for (int slot = consumedSlots.nextSetBit(0); slot >= 0; slot = consumedSlots.nextSetBit(slot + 1)) {
+			transaction.setItem(inventory, slot, null);
+		}
+	}
+	
+	/**
+	 * Builder of a <tt>ShiftClickStrategy</tt>
+	 *
+	 * @author Mikedeejay2
+	 */
+	public static final class Builder {
+		
+		private final List<ShiftClickRule> rules         = new ArrayList<>();
+		private final BitSet               resultSlots   = new BitSet();
+		private final BitSet               consumedSlots = new BitSet();
+		private       boolean              playerOrder   = false;
+		
+		private Builder() {
+		}
+		
+		/**
+		 * Add a rule to the strategy. Rules added first take priority.
+		 *
+		 * @param rule The rule to add
+		 *
+		 * @return This builder
+		 */
+		public Builder rule(ShiftClickRule rule) {
+			if (rules.size() >= Byte.MAX_VALUE) {
+				throw new IllegalArgumentException("A shift click strategy can't have more than " + Byte.MAX_VALUE + " rules");
+			}
+			rules.add(rule);
+			return this;
+		}
+		
+		/**
+		 * Move items out of the inventory in player order (main inventory before the hotbar)
+		 *
+		 * @return This builder
+		 */
+		public Builder playerOrder() {
+			this.playerOrder = true;
+			return this;
+		}
+		
+		/**
+		 * Set the slots that hold the result of the inventory
+		 *
+		 * @param slots The result slots
+		 *
+		 * @return This builder
+		 */
+		public Builder resultSlots(int... slots) {
+			for (int slot : slots) {
+				resultSlots.set(slot);
+			}
+			return this;
+		}
+		
+		/**
+		 * Set the slots that are used up once the result has been taken
+		 *
+		 * @param slots The consumed slots
+		 *
+		 * @return This builder
+		 */
+		public Builder consumedSlots(int... slots) {
+			for (int slot : slots) {
+				consumedSlots.set(slot);
+			}
+			return this;
+		}
+		
+		/**
+		 * Build the strategy
+		 *
+		 * @return The new strategy
+		 */
+		public ShiftClickStrategy build() {
+			return new ShiftClickStrategy(this);
+		}
+	
+	}
+	
+}
@@ -0,0 +1,282 @@
+package com.mikedeejay2.simplestack.util;
+
+import com.mikedeejay2.simplestack.SimpleStack;
+import org.bukkit.Material;
+import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.ItemStack;
+
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Index of the slots of an inventory. Occupied slots and slots holding partial stacks are tracked
+ * by the similarity key of their item (see <tt>StackUtils.similarityKey</tt>), and empty slots are
+ * tracked in a bitmap. This lets repeated moves into the same inventory find a slot without
+ * scanning the whole inventory every time. <p>
+ * The index is built lazily the first time it is used. Every slot that the index points to, occupied
+ * or free, is checked against the live inventory before it is used, so slots changed by something
+ * the index isn't told about (droppers, other plugins, shared inventories) are corrected as they are
+ * found. A free slot that was filled with a similar partial stack in the meantime is filled like any
+ * other partial stack. When the index can't complete an operation it is rebuilt once in case a slot
+ * that it doesn't know about was freed or filled, so a stale index can only change which slots are
+ * used, never how much is moved.
+ *
+ * @author Mikedeejay2
+ */
+public final class SlotIndex {
+	
+	private final SimpleStack       plugin;
+	// The inventory being indexed
+	private final Inventory         inventory;
+	// Occupied slots by the similarity key of their item
+	private final Map<Long, BitSet> occupied;
+	// Slots holding less than their max amount by the similarity key of their item
+	private final Map<Long, BitSet> partial;
+	// Slots that are empty
+	private final BitSet            free;
+	// The similarity key of the item in every occupied slot
+	private       long[]            slotKeys;
+	// Whether the index has been built since it was last invalidated
+	private       boolean           built;
+	
+	public SlotIndex(SimpleStack plugin, Inventory inventory) {
+		this.plugin = plugin;
+		this.inventory = inventory;
+		this.occupied = new HashMap<>();
+		this.partial = new HashMap<>();
+		this.free = new BitSet();
+	}
+	
+	/**
+	 * Mark the index as outdated so that it is rebuilt the next time that it is used
+	 */
+	public void invalidate() {
+		built = false;
+	}
+	
+	/**
+	 * Count the amount of items in the inventory that are similar to an item
+	 *
+	 * @param item   The item to count
+	 * @param needed The amount that is needed, the index is rebuilt if less than this is found
+	 *
+	 * @return The amount of similar items
+	 */
+	public int count(ItemStack item, int needed) {
+		boolean fresh  = ensureBuilt();
+		int     amount = countIndexed(item);
+		if (amount < needed && !fresh) {
+			build();
+			amount = countIndexed(item);
+		}
+		return amount;
+	}
+	
+	/**
+	 * Add an amount of an item to the inventory. Partial stacks of the item are filled first,
+	 * then empty slots. Every changed slot is written once.
+	 *
+	 * @param item   The item to add
+	 * @param amount The amount of the item to add
+	 *
+	 * @return The amount of the item that was added
+	 */
+	public int add(ItemStack item, int amount) {
+		boolean fresh = ensureBuilt();
+		int     added = addIndexed(item, amount);
+		if (added < amount && !fresh) {
+			build();
+			added += addIndexed(item, amount - added);
+		}
+		return added;
+	}
+	
+	/**
+	 * Remove an amount of an item from the inventory. Every changed slot is written once.
+	 *
+	 * @param item   The item to remove
+	 * @param amount The amount of the item to remove
+	 *
+	 * @return The amount of the item that was removed
+	 */
+	public int remove(ItemStack item, int amount) {
+		boolean fresh   = ensureBuilt();
+		int     removed = removeIndexed(item, amount);
+		if (removed < amount && !fresh) {
+			build();
+			removed += removeIndexed(item, amount - removed);
+		}
+		return removed;
+	}
+	
+	/**
+	 * Count the similar items in the occupied slots that the index knows about
+	 *
+	 * @param item The item to count
+	 *
+	 * @return The amount of similar items
+	 */
+	private int countIndexed(ItemStack item) {
+		BitSet slots = occupied.get(StackUtils.similarityKey(item));
+		if (slots == null) {
+			return 0;
+		}
+		int amount = 0;
+		for (int slot = slots.nextSetBit(0); slot >= 0; slot = slots.nextSetBit(slot + 1)) {
+			ItemStack curItem = inventory.getItem(slot);
+			if (curItem == null || !item.isSimilar(curItem)) {
+				update(slot, curItem);
+				continue;
+			}
+			amount += curItem.getAmount();
+		}
+		return amount;
+	}
+	
+	/**
+	 * Add an item to the partial stacks and empty slots that the index knows about
+	 *
+	 * @param item   The item to add
+	 * @param amount The amount of the item to add
+	 *
+	 * @return The amount of the item that was added
+	 */
+	private int addIndexed(ItemStack item, int amount) {
+		int    maxAmount  = StackUtils.getMaxAmount(plugin, item);
+		int    amountLeft = amount;
+		BitSet slots      = partial.get(StackUtils.similarityKey(item));
+		if (slots != null) {
+			for (int slot = slots.nextSetBit(0); slot >= 0 && amountLeft > 0; slot = slots.nextSetBit(slot + 1)) {
+				ItemStack curItem = inventory.getItem(slot);
+				if (curItem == null || curItem.getAmount() >= maxAmount || !item.isSimilar(curItem)) {
+					update(slot, curItem);
+					continue;
+				}
+				int moved = Math.min(amountLeft, maxAmount - curItem.getAmount());
+				curItem.setAmount(curItem.getAmount() + moved);
+				inventory.setItem(slot, curItem);
+				update(slot, curItem);
+				amountLeft -= moved;
+			}
+		}
+		for (int slot = free.nextSetBit(0); slot >= 0 && amountLeft > 0; slot = free.nextSetBit(slot + 1)) {
+			ItemStack curItem = inventory.getItem(slot);
+			if (curItem != null && curItem.getType() != Material.AIR) {
+				if (curItem.getAmount() < maxAmount && item.isSimilar(curItem)) {
+					int moved = Math.min(amountLeft, maxAmount - curItem.getAmount());
+					curItem.setAmount(curItem.getAmount() + moved);
+					inventory.setItem(slot, curItem);
+					amountLeft -= moved;
+				}
+				update(slot, curItem);
+				continue;
+			}
+			ItemStack newItem = item.clone();
+			newItem.setAmount(Math.min(amountLeft, maxAmount));
+			inventory.setItem(slot, newItem);
+			update(slot, newItem);
+			amountLeft -= newItem.getAmount();
+		}
+		return amount - amountLeft;
+	}
+	
+	/**
+	 * Remove an item from the occupied slots that the index knows about
+	 *
+	 * @param item   The item to remove
+	 * @param amount The amount of the item to remove
+	 *
+	 * @return The amount of the item that was removed
+	 */
+	private int removeIndexed(ItemStack item, int amount) {
+		BitSet slots = occupied.get(StackUtils.similarityKey(item));
+		if (slots == null) {
+			return 0;
+		}
+		int amountLeft = amount;
+		for (int slot = slots.nextSetBit(0); slot >= 0 && amountLeft > 0; slot = slots.nextSetBit(slot + 1)) {
+			ItemStack curItem = inventory.getItem(slot);
+			if (curItem == null || !item.isSimilar(curItem)) {
+				update(slot, curItem);
+				continue;
+			}
+			int moved = Math.min(amountLeft, curItem.getAmount());
+			curItem.setAmount(curItem.getAmount() - moved);
+			inventory.setItem(slot, curItem.getAmount() == 0 ? null : curItem);
+			update(slot, curItem);
+			amountLeft -= moved;
+		}
+		return amount - amountLeft;
+	}
+	
+	/**
+	 * Build the index if it isn't built
+	 *
+	 * @return Whether the index was built by this call
+	 */
+	private boolean ensureBuilt() {
+		if (built) {
+			return false;
+		}
+		build();
+		return true;
+	}
+	
+	/**
+	 * Build the index from a single scan of the inventory's contents
+	 */
+	private void build() {
+		ItemStack[] contents = inventory.getContents();
+		occupied.clear();
+		partial.clear();
+		free.clear();
+		slotKeys = new long[contents.length];
+		for (int slot = 0; slot < contents.length; ++slot) {
+			add(slot, contents[slot]);
+		}
+		built = true;
+	}
+	
+	/**
+	 * Update the index of a slot to the item that it holds now
+	 *
+	 * @param slot The slot to update
+	 * @param item The item in the slot, null if empty
+	 */
+	private void update(int slot, ItemStack item) {
+		if (!free.get(slot)) {
+			long   key           = slotKeys[slot];
+			BitSet occupiedSlots = occupied.get(key);
+			BitSet partialSlots  = partial.get(key);
+			if (occupiedSlots != null) {
+				occupiedSlots.clear(slot);
+			}
+			if (partialSlots != null) {
+				partialSlots.clear(slot);
+			}
+		}
+		add(slot, item);
+	}
+	
+	/**
+	 * Add a slot to the index
+	 *
+	 * @param slot The slot to add
+	 * @param item The item in the slot, null if empty
+	 */
+	private void add(int slot, ItemStack item) {
+		if (item == null || item.getType() == Material.AIR || item.getAmount() <= 0) {
+			free.set(slot);
+			return;
+		}
+		long key = StackUtils.similarityKey(item);
+		free.clear(slot);
+		slotKeys[slot] = key;
+		occupied.computeIfAbsent(key, k -> new BitSet()).set(slot);
+		if (item.getAmount() < StackUtils.getMaxAmount(plugin, item)) {
+			partial.computeIfAbsent(key, k -> new BitSet()).set(slot);
+		}
+	}
+	
+}
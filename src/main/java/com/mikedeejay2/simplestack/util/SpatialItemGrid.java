@@ -0,0 +1,144 @@
+package com.mikedeejay2.simplestack.util;
+
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Spatial hash grid for finding nearby items. Entries are bucketed by a similarity key
+ * (see <tt>StackUtils.similarityKey</tt>) and by the cell of the grid that they are located in,
+ * so looking for merge candidates only visits entries of the same similarity in the neighbouring cells.
+ *
+ * @param <T> The type of entry stored in the grid
+ *
+ * @author Mikedeejay2
+ */
+public final class SpatialItemGrid<T> {
+	
+	// The size of a cell in blocks
+	private final double                        cellSize;
+	// Entries of the grid bucketed by similarity key and then by packed cell coordinates
+	private final Map<Long, Map<Long, List<T>>> cells;
+	
+	public SpatialItemGrid(double cellSize) {
+		this.cellSize = cellSize;
+		this.cells = new HashMap<>();
+	}
+	
+	/**
+	 * Add an entry to the grid
+	 *
+	 * @param similarityKey The similarity key of the entry
+	 * @param x             The x location of the entry
+	 * @param y             The y location of the entry
+	 * @param z             The z location of the entry
+	 * @param entry         The entry to add
+	 */
+	public void add(long similarityKey, double x, double y, double z, T entry) {
+		cells.computeIfAbsent(similarityKey, key -> new HashMap<>())
+				.computeIfAbsent(packCell(cell(x), cell(y), cell(z)), key -> new ArrayList<>(2))
+				.add(entry);
+	}
+	
+	/**
+	 * Remove an entry from the grid. The similarity key and location have to be the same as
+	 * the values that the entry was added with.
+	 *
+	 * @param similarityKey The similarity key that the entry was added with
+	 * @param x             The x location that the entry was added with
+	 * @param y             The y location that the entry was added with
+	 * @param z             The z location that the entry was added with
+	 * @param entry         The entry to remove
+	 */
+	public void remove(long similarityKey, double x, double y, double z, T entry) {
+		Map<Long, List<T>> similarCells = cells.get(similarityKey);
+		if (similarCells == null) {
+			return;
+		}
+		long    cell    = packCell(cell(x), cell(y), cell(z));
+		List<T> entries = similarCells.get(cell);
+		if (entries == null) {
+			return;
+		}
+		entries.remove(entry);
+		if (!entries.isEmpty()) {
+			return;
+		}
+		similarCells.remove(cell);
+		if (similarCells.isEmpty()) {
+			cells.remove(similarityKey);
+		}
+	}
+	
+	/**
+	 * Get the size in blocks of a cell of this grid
+	 *
+	 * @return The cell size
+	 */
+	public double getCellSize() {
+		return cellSize;
+	}
+	
+	/**
+	 * Run an action for every entry of the same similarity key in the cells that could be
+	 * within the radius of the location. Entries are not filtered by their exact distance,
+	 * this has to be checked by the action.
+	 *
+	 * @param similarityKey The similarity key to search for
+	 * @param x             The x location to search around
+	 * @param y             The y location to search around
+	 * @param z             The z location to search around
+	 * @param radius        The radius in blocks to search in
+	 * @param action        The action to run for every entry found
+	 */
+	public void forEachNearby(long similarityKey, double x, double y, double z, double radius, Consumer<T> action) {
+		Map<Long, List<T>> similarCells = cells.get(similarityKey);
+		if (similarCells == null) {
+			return;
+		}
+		int minX = cell(x - radius);
+		int minY = cell(y - radius);
+		int minZ = cell(z - radius);
+		int maxX = cell(x + radius);
+		int maxY = cell(y + radius);
+		int maxZ = cell(z + radius);
+		for (int cellX = minX; cellX <= maxX; ++cellX) {
+			for (int cellY = minY; cellY <= maxY; ++cellY) {
+				for (int cellZ = minZ; cellZ <= maxZ; ++cellZ) {
+					List<T> entries = similarCells.get(packCell(cellX, cellY, cellZ));
+					if (entries == null) {
+						continue;
+					}
+					for (T entry : entries) {
+						action.accept(entry);
+					}
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Convert a coordinate to the coordinate of the cell that it is located in
+	 *
+	 * @param coordinate The block coordinate
+	 *
+	 * @return The cell coordinate
+	 */
+	private int cell(double coordinate) {
+		return (int)Math.floor(coordinate / cellSize);
+	}
+	
+	/**
+	 * Pack the coordinates of a cell into a single long, the same layout that Minecraft uses
+	 * for block positions.
+	 *
+	 * @param cellX The x coordinate of the cell
+	 * @param cellY The y coordinate of the cell
+	 * @param cellZ The z coordinate of the cell
+	 *
+	 * @return The packed cell coordinates
+	 */
+	private static long packCell(int cellX, int cellY, int cellZ) {
+		return ((long)cellX & 0x3FFFFFFL) << 38 | ((long)cellZ & 0x3FFFFFFL) << 12 | ((long)cellY & 0xFFFL);
+	}
+	
+}
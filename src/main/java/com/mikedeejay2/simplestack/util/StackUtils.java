@@ -1,6 +1,7 @@
 package com.mikedeejay2.simplestack.util;
 
 import com.mikedeejay2.simplestack.SimpleStack;
+import com.mikedeejay2.simplestack.config.UniqueItemIndex;
 import org.bukkit.inventory.*;
 
 /**
@@ -33,7 +34,20 @@ public final class StackUtils {
 	 * @return The max amount for the item.
 	 */
 	public static int getMaxAmount(SimpleStack plugin, ItemStack item) {
-		return plugin.config().getAmount(item);
+		return plugin.config().snapshot().getAmount(item);
+	}
+	
+	/**
+	 * Get a key that is equal for all items that are similar to each other. Items with
+	 * different keys can never be similar, items with the same key still have to be checked
+	 * with <tt>ItemStack.isSimilar</tt>.
+	 *
+	 * @param item The item to get the similarity key for
+	 *
+	 * @return The similarity key of the item
+	 */
+	public static long similarityKey(ItemStack item) {
+		return (long)item.getType().ordinal() << 32 | (UniqueItemIndex.fingerprint(item) & 0xFFFFFFFFL);
 	}
 	
 }
@@ -0,0 +1,114 @@
+package com.mikedeejay2.simplestack.util;
+
+import com.mikedeejay2.simplestack.SimpleStack;
+import com.mikedeejay2.simplestack.core.SlotArray;
+import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.ItemStack;
+
+import java.util.*;
+
+/**
+ * Adapts an inventory of an <tt>InventoryTransaction</tt> to a <tt>SlotArray</tt> so that the algorithms
+ * in <tt>StackAlgorithms</tt> can run on it. Every kind of item that is seen gets an id, items that are
+ * similar to each other share the same id. Ids are only valid for the slot array that gave them out. <p>
+ * There is one slot array per inventory of a transaction, get it with <tt>InventoryTransaction.getSlotArray</tt>.
+ *
+ * @author Mikedeejay2
+ */
+public final class TransactionSlotArray implements SlotArray {
+	
+	private final SimpleStack              plugin;
+	// The transaction that the slots are read from and written to
+	private final InventoryTransaction     transaction;
+	// The inventory of the slots
+	private final Inventory                inventory;
+	// Every item that has an id, the item with the id n is at index n - 1
+	private final List<ItemStack>          items;
+	// The max amount of every item at the same index as the item
+	private final List<Integer>            maxAmounts;
+	// Ids of the items by similarity key
+	private final Map<Long, List<Integer>> ids;
+	// The last item seen in every slot and its id, so that an unchanged slot isn't identified again
+	private final ItemStack[]              slotItems;
+	private final int[]                    slotIds;
+	
+	TransactionSlotArray(SimpleStack plugin, InventoryTransaction transaction, Inventory inventory) {
+		this.plugin = plugin;
+		this.transaction = transaction;
+		this.inventory = inventory;
+		this.items = new ArrayList<>(4);
+		this.maxAmounts = new ArrayList<>(4);
+		this.ids = new HashMap<>();
+		this.slotItems = new ItemStack[inventory.getSize()];
+		this.slotIds = new int[inventory.getSize()];
+	}
+	
+	/**
+	 * Get the id of an item, giving it a new id if no similar item has been seen yet
+	 *
+	 * @param item The item to get the id of
+	 *
+	 * @return The id of the item
+	 */
+	public int register(ItemStack item) {
+		List<Integer> candidates = ids.computeIfAbsent(StackUtils.similarityKey(item), key -> new ArrayList<>(1));
+		for (int id : candidates) {
+			if (items.get(id - 1).isSimilar(item)) {
+				return id;
+			}
+		}
+		items.add(item.clone());
+		maxAmounts.add(StackUtils.getMaxAmount(plugin, item));
+		candidates.add(items.size());
+		return items.size();
+	}
+	
+	@Override
+	public int size() {
+		return slotItems.length;
+	}
+	
+	@Override
+	public int getItem(int slot) {
+		ItemStack item = transaction.getItem(inventory, slot);
+		if (item == null) {
+			return EMPTY;
+		}
+		if (slot >= slotItems.length) {
+			return register(item);
+		}
+		if (slotItems[slot] != item) {
+			slotItems[slot] = item;
+			slotIds[slot] = register(item);
+		}
+		return slotIds[slot];
+	}
+	
+	@Override
+	public int getAmount(int slot) {
+		ItemStack item = transaction.getItem(inventory, slot);
+		return item == null ? 0 : item.getAmount();
+	}
+	
+	@Override
+	public int getMaxAmount(int item) {
+		return maxAmounts.get(item - 1);
+	}
+	
+	@Override
+	public void setSlot(int slot, int item, int amount) {
+		if (item == EMPTY || amount <= 0) {
+			transaction.setItem(inventory, slot, null);
+			return;
+		}
+		ItemStack current = transaction.getItem(inventory, slot);
+		if (current != null && current.isSimilar(items.get(item - 1))) {
+			current.setAmount(amount);
+			return;
+		}
+		ItemStack newItem = items.get(item - 1).clone();
+		newItem.setAmount(amount);
+		transaction.setItem(inventory, slot, newItem);
+	}
+	
+}
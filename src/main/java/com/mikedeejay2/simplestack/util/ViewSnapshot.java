@@ -0,0 +1,101 @@
+package com.mikedeejay2.simplestack.util;
+
+import org.bukkit.Material;
+import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.InventoryView;
+import org.bukkit.inventory.ItemStack;
+
+/**
+ * Snapshot of every slot and the cursor of an <tt>InventoryView</tt>. A snapshot is taken before
+ * Simple Stack emulates a click so that the slots that the click changed can be found afterwards
+ * by diffing the snapshot against the view.
+ *
+ * @author Mikedeejay2
+ */
+public final class ViewSnapshot {
+	
+	// The top inventory of the view when the snapshot was taken
+	private final Inventory   topInventory;
+	// Every slot of the view by raw slot
+	private final ItemStack[] slots;
+	// The item on the cursor
+	private final ItemStack   cursor;
+	
+	public ViewSnapshot(InventoryView view) {
+		this.topInventory = view.getTopInventory();
+		this.slots = new ItemStack[view.countSlots()];
+		for (int rawSlot = 0; rawSlot < slots.length; ++rawSlot) {
+			slots[rawSlot] = copy(view.getItem(rawSlot));
+		}
+		this.cursor = copy(view.getCursor());
+	}
+	
+	/**
+	 * Return whether a view is still the same view that this snapshot was taken of
+	 *
+	 * @param view The view to check
+	 *
+	 * @return Whether the view matches this snapshot
+	 */
+	public boolean matches(InventoryView view) {
+		return view.countSlots() == slots.length && view.getTopInventory().equals(topInventory);
+	}
+	
+	/**
+	 * Count the raw slots of a view that have changed since this snapshot was taken
+	 *
+	 * @param view The view to diff against
+	 *
+	 * @return The amount of raw slots that have changed
+	 */
+	public int countChangedSlots(InventoryView view) {
+		int count = 0;
+		for (int rawSlot = 0; rawSlot < slots.length; ++rawSlot) {
+			if (!isSame(slots[rawSlot], view.getItem(rawSlot))) {
+				++count;
+			}
+		}
+		return count;
+	}
+	
+	/**
+	 * Return whether the cursor of a view has changed since this snapshot was taken
+	 *
+	 * @param view The view to diff against
+	 *
+	 * @return Whether the cursor has changed
+	 */
+	public boolean isCursorChanged(InventoryView view) {
+		return !isSame(cursor, view.getCursor());
+	}
+	
+	/**
+	 * Copy an item so that later changes to the live item don't change the snapshot
+	 *
+	 * @param item The item to copy
+	 *
+	 * @return The copy, null if the item is empty
+	 */
+	private static ItemStack copy(ItemStack item) {
+		if (item == null || item.getType() == Material.AIR) {
+			return null;
+		}
+		return item.clone();
+	}
+	
+	/**
+	 * Return whether a snapshot item is the same as a live item, including the amount
+	 *
+	 * @param snapshotItem The item in the snapshot, null if empty
+	 * @param liveItem     The live item
+	 *
+	 * @return Whether both items are the same
+	 */
+	private static boolean isSame(ItemStack snapshotItem, ItemStack liveItem) {
+		if (liveItem == null || liveItem.getType() == Material.AIR) {
+			return snapshotItem == null;
+		}
+		return liveItem.equals(snapshotItem);
+	}
+	
+}